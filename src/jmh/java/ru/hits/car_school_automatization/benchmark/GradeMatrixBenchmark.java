@@ -0,0 +1,118 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.enums.MetricType;
+import ru.hits.car_school_automatization.util.GradeCalculator;
+import ru.hits.car_school_automatization.util.GradeMatrix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет оценок одной цели для всех студентов: прежний расчет через списки,
+ * поштучный вызов {@link GradeCalculator} и один проход по матрице {@link GradeMatrix}.
+ * Запуск: ./gradlew jmh (профилировщик gc показывает gc.alloc.rate.norm на операцию).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GradeMatrixBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int students;
+
+    private List<Metric> metrics;
+    private List<Map<UUID, Double>> valuesByStudent;
+    private double[] matrix;
+    private double[] grades;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        metrics = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            metrics.add(metric(MetricType.MARK, 0.0));
+        }
+        metrics.add(metric(MetricType.COEFFICIENT, 1.0));
+        metrics.add(metric(MetricType.COEFFICIENT, 1.0));
+        metrics.add(metric(MetricType.CONSTRAINT, 10.0));
+
+        valuesByStudent = new ArrayList<>(students);
+        matrix = new double[students * metrics.size()];
+        for (int s = 0; s < students; s++) {
+            Map<UUID, Double> values = new HashMap<>();
+            for (int m = 0; m < metrics.size(); m++) {
+                double value = Double.NaN;
+                if (random.nextInt(10) > 0) {
+                    value = metrics.get(m).getType() == MetricType.MARK
+                            ? random.nextInt(11)
+                            : 0.5 + random.nextDouble();
+                    values.put(metrics.get(m).getId(), value);
+                }
+                matrix[s * metrics.size() + m] = value;
+            }
+            valuesByStudent.add(values);
+        }
+        grades = new double[students];
+    }
+
+    /**
+     * Прежний расчет: значения упаковываются в List&lt;Double&gt; для каждого студента
+     */
+    @Benchmark
+    public void boxedLists(Blackhole blackhole) {
+        for (Map<UUID, Double> values : valuesByStudent) {
+            List<Double> markValues = new ArrayList<>();
+            List<Double> constraints = new ArrayList<>();
+            double coefficientProduct = 1.0;
+            for (Metric metric : metrics) {
+                Double stored = values.get(metric.getId());
+                double value = stored != null ? stored : metric.getMinValue();
+                if (metric.getType() == MetricType.MARK) {
+                    markValues.add(value);
+                } else if (metric.getType() == MetricType.COEFFICIENT) {
+                    coefficientProduct *= value;
+                } else if (metric.getType() == MetricType.CONSTRAINT) {
+                    constraints.add(value);
+                }
+            }
+            double base = markValues.isEmpty() ? 0.0 : markValues.stream().mapToDouble(Double::doubleValue).sum() / markValues.size();
+            double result = base * coefficientProduct;
+            for (Double limit : constraints) {
+                if (result > limit) {
+                    result = limit;
+                }
+            }
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    public void perStudentMaps(Blackhole blackhole) {
+        for (Map<UUID, Double> values : valuesByStudent) {
+            blackhole.consume(GradeCalculator.calculateMetrics(metrics, values));
+        }
+    }
+
+    @Benchmark
+    public double[] matrix() {
+        GradeMatrix.of(metrics).compute(matrix, students, grades);
+        return grades;
+    }
+
+    private static Metric metric(MetricType type, double minValue) {
+        return Metric.builder()
+                .id(UUID.randomUUID())
+                .type(type)
+                .minValue(minValue)
+                .maxValue(10.0)
+                .build();
+    }
+}
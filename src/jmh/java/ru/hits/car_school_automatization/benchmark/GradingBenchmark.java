@@ -0,0 +1,125 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.hits.car_school_automatization.dto.GradeTableRowDto;
+import ru.hits.car_school_automatization.dto.GradeTableTargetDto;
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.entity.MetricValue;
+import ru.hits.car_school_automatization.entity.Post;
+import ru.hits.car_school_automatization.entity.Solution;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.service.ChannelGradeData;
+import ru.hits.car_school_automatization.service.ChannelGradeLoader;
+import ru.hits.car_school_automatization.util.GradeCalculator;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути расчета оценок на синтетическом предмете из {@link SyntheticChannel}:
+ * <ul>
+ *     <li>calculateMetrics — расчет по критериям одного поста для всех студентов (как в GradeService);</li>
+ *     <li>applyDeadlinePenalty — штраф за дедлайн для всех студентов по одному посту;</li>
+ *     <li>applyControlCoefficients — коэффициенты контрольных для всех постов и студентов;</li>
+ *     <li>gradeTable — полная сборка таблицы оценок: загрузка через {@link ChannelGradeLoader}
+ *     из репозиториев в памяти и строки по всем студентам.</li>
+ * </ul>
+ * Запуск: ./gradlew jmh; результаты в формате JSON пишутся в build/results/jmh/results.json
+ * и сравниваются между коммитами (например, через JMH Visualizer).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GradingBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int students;
+
+    private SyntheticChannel channel;
+    private ChannelGradeLoader loader;
+    private ChannelGradeData data;
+
+    private Post post;
+    private List<Metric> postMetrics;
+    private List<Map<UUID, Double>> valuesByStudent;
+    private double[] marks;
+    private Instant[] submittedAt;
+
+    @Setup
+    public void setUp() {
+        channel = new SyntheticChannel(students);
+        loader = InMemoryRepositories.loader(channel);
+        data = loader.load(channel.channelId, (Long) null);
+
+        post = channel.taskPosts.getFirst();
+        postMetrics = channel.metricsOf(post.getId());
+
+        Map<Long, Map<UUID, Double>> values = new HashMap<>();
+        for (MetricValue value : channel.metricValues) {
+            values.computeIfAbsent(value.getUserId(), key -> new HashMap<>()).put(value.getMetricId(), value.getValue());
+        }
+        Map<Long, Instant> submissions = new HashMap<>();
+        for (Solution solution : channel.solutions) {
+            if (solution.getTaskId().equals(post.getId())) {
+                submissions.put(solution.getStudentId(), solution.getSubmittedAt().toInstant(ZoneOffset.UTC));
+            }
+        }
+
+        valuesByStudent = new ArrayList<>(students);
+        marks = new double[students];
+        submittedAt = new Instant[students];
+        for (int s = 0; s < students; s++) {
+            Long userId = channel.students.get(s).getId();
+            Map<UUID, Double> studentValues = values.getOrDefault(userId, Map.of());
+            valuesByStudent.add(studentValues);
+            marks[s] = GradeCalculator.calculateMetrics(postMetrics, studentValues);
+            submittedAt[s] = submissions.get(userId);
+        }
+    }
+
+    @Benchmark
+    public void calculateMetrics(Blackhole blackhole) {
+        for (Map<UUID, Double> values : valuesByStudent) {
+            blackhole.consume(GradeCalculator.calculateMetrics(postMetrics, values));
+        }
+    }
+
+    @Benchmark
+    public void applyDeadlinePenalty(Blackhole blackhole) {
+        Instant deadline = post.getDeadline().toInstant(ZoneOffset.UTC);
+        for (int s = 0; s < students; s++) {
+            blackhole.consume(GradeCalculator.applyDeadlinePenalty(marks[s], post.getDeadlinePenalty(),
+                    deadline, submittedAt[s], SyntheticChannel.NOW));
+        }
+    }
+
+    /**
+     * Коэффициенты запоминаются в {@link ChannelGradeData}, поэтому измеряется путь с прогретым кэшем,
+     * как при сборке таблицы после первой строки
+     */
+    @Benchmark
+    public void applyControlCoefficients(Blackhole blackhole) {
+        for (User student : channel.students) {
+            for (Post taskPost : channel.taskPosts) {
+                blackhole.consume(data.applyControlCoefficients(1.0, taskPost.getId(), student.getId()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void gradeTable(Blackhole blackhole) {
+        ChannelGradeData tableData = loader.load(channel.channelId, (Long) null);
+        List<GradeTableTargetDto> targets = tableData.tableTargets();
+        for (User student : tableData.getStudents()) {
+            GradeTableRowDto row = tableData.tableRow(student, targets);
+            blackhole.consume(row);
+        }
+    }
+}
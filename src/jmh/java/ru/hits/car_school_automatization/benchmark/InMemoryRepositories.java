@@ -0,0 +1,83 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.entity.MetricValue;
+import ru.hits.car_school_automatization.entity.Solution;
+import ru.hits.car_school_automatization.entity.TaskSolution;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.repository.*;
+import ru.hits.car_school_automatization.service.ChannelGradeLoader;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Репозитории в памяти поверх {@link SyntheticChannel}. Прокси отвечают только на методы,
+ * которые вызывает {@link ChannelGradeLoader}; любой другой вызов — ошибка, чтобы бенчмарк
+ * не начал незаметно измерять что-то другое.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static ChannelGradeLoader loader(SyntheticChannel data) {
+        return new ChannelGradeLoader(
+                repository(ChannelRepository.class, Map.of(
+                        "findById", args -> Optional.of(data.channel))),
+                repository(PostRepository.class, Map.of(
+                        "findByChannelIdAndType", args -> args[1] == PostType.TASK ? data.taskPosts : data.controlPosts,
+                        "findAllById", args -> data.controlPosts)),
+                repository(TaskRepository.class, Map.of(
+                        "findByChannel_Id", args -> data.tasks)),
+                repository(ControlRepository.class, Map.of(
+                        "findWithTargetsByChannelId", args -> data.controls)),
+                repository(MetricRepository.class, Map.of(
+                        "findByPostIdIn", args -> filter(data.metrics, Metric::getPostId, args[0]),
+                        "findByTaskIdIn", args -> filter(data.metrics, Metric::getTaskId, args[0]))),
+                repository(MetricValueRepository.class, Map.of(
+                        "findByMetricIdInAndUserIdIn", args -> filter(
+                                filter(data.metricValues, MetricValue::getMetricId, args[0]), MetricValue::getUserId, args[1]))),
+                repository(SolutionRepository.class, Map.of(
+                        "findByTaskIdInAndStudentIdIn", args -> filter(
+                                filter(data.solutions, Solution::getTaskId, args[0]), Solution::getStudentId, args[1]))),
+                repository(TeamRepository.class, Map.of(
+                        "findWithUsersByTaskIdInAndUserIdIn", args -> filter(data.teams, team -> team.getTask().getId(), args[0])
+                                .stream()
+                                .filter(team -> team.getUsers().stream().anyMatch(user -> ((Collection<?>) args[1]).contains(user.getId())))
+                                .toList())),
+                repository(TaskSolutionRepository.class, Map.of(
+                        "findByTeamIdIn", args -> filter(data.taskSolutions, TaskSolution::getTeamId, args[0]))),
+                // снимки в бенчмарке отключены, оценки всегда считаются
+                repository(GradeSnapshotRepository.class, Map.of()));
+    }
+
+    private static <T, K> List<T> filter(List<T> items, Function<T, K> key, Object keys) {
+        Set<?> allowed = new HashSet<>((Collection<?>) keys);
+        return items.stream()
+                .filter(item -> allowed.contains(key.apply(item)))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> methods) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "(in-memory)";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+    }
+}
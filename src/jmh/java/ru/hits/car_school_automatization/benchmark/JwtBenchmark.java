@@ -0,0 +1,93 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.service.JwtPrincipal;
+import ru.hits.car_school_automatization.service.JwtTokenProvider;
+import ru.hits.car_school_automatization.service.TokenRevocationRegistry;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость аутентификации одного запроса:
+ * <ul>
+ *     <li>reparsePerCall — прежний путь: validateToken и getUserIdFromToken в фильтре и в каждом
+ *     вызове сервиса, каждый раз со сборкой парсера и проверкой HMAC;</li>
+ *     <li>singleParse — фильтр разбирает токен один раз, сервисы получают id из {@link JwtPrincipal} запроса.</li>
+ * </ul>
+ * Число вызовов сервисов на запрос задается параметром serviceCalls.
+ * Запуск: ./gradlew jmh -PjmhIncludes=JwtBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Param({"1", "3"})
+    public int serviceCalls;
+
+    private SecretKey secretKey;
+    private JwtTokenProvider provider;
+    private String token;
+    private String header;
+
+    @Setup
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        provider = new JwtTokenProvider(SECRET, 3_600_000, false, null, new TokenRevocationRegistry(3_600_000, null));
+        Date now = new Date();
+        token = Jwts.builder()
+                .subject("42")
+                .claim("role", List.of(Role.STUDENT, Role.TEACHER))
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(secretKey)
+                .compact();
+        header = "Bearer " + token;
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public long reparsePerCall() {
+        long sum = legacyValidateAndGetId(token);
+        for (int i = 0; i < serviceCalls; i++) {
+            sum += legacyValidateAndGetId(header.substring(7));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long singleParse() {
+        JwtPrincipal principal = provider.parse(token).orElseThrow();
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(null, null, List.of());
+        authentication.setDetails(principal);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        long sum = principal.userId();
+        for (int i = 0; i < serviceCalls; i++) {
+            sum += provider.extractUserIdFromHeader(header);
+        }
+        return sum;
+    }
+
+    private long legacyValidateAndGetId(String token) {
+        Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token);
+        JwtParser parser = Jwts.parser().verifyWith(secretKey).build();
+        return Long.parseLong(parser.parseSignedClaims(token).getPayload().getSubject());
+    }
+}
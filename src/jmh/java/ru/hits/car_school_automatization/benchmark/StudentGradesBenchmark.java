@@ -0,0 +1,56 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.service.ChannelGradeData;
+import ru.hits.car_school_automatization.service.ChannelGradeLoader;
+import ru.hits.car_school_automatization.service.StudentGradeExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет оценок за предмет по всем студентам через {@link StudentGradeExecutor}: последовательно
+ * и на виртуальных потоках. Снимок предмета загружается заново перед каждым вызовом (вне замера),
+ * чтобы мемоизация {@link ChannelGradeData} не переносилась между итерациями.
+ * <p>
+ * Запуск: ./gradlew jmh -PjmhIncludes=StudentGradesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentGradesBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int students;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private SyntheticChannel channel;
+    private ChannelGradeLoader loader;
+    private StudentGradeExecutor executor;
+    private ChannelGradeData data;
+
+    @Setup
+    public void setUp() {
+        channel = new SyntheticChannel(students);
+        loader = InMemoryRepositories.loader(channel);
+        executor = new StudentGradeExecutor(parallel);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadData() {
+        data = loader.load(channel.channelId, (Long) null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Benchmark
+    public void channelGrades(Blackhole blackhole) {
+        blackhole.consume(executor.map(data.getStudents(), (User student) -> data.channelGrade(student.getId())));
+    }
+}
@@ -0,0 +1,209 @@
+package ru.hits.car_school_automatization.benchmark;
+
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.DeadlinePenaltyUnit;
+import ru.hits.car_school_automatization.enums.MetricType;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.enums.Role;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Синтетический предмет для бенчмарков. Генерация детерминирована (фиксированный seed и дата),
+ * поэтому прогоны на разных коммитах сравнимы.
+ * <p>
+ * Состав: 10 постов TASK (3 MARK, COEFFICIENT, CONSTRAINT, штраф за дедлайн), 3 командных задания
+ * с командами по 5 человек (2 MARK), 2 контрольные с коэффициентом, покрывающие все задания.
+ * Около 90% значений критериев заполнено, решения сдали около 80% студентов, часть — после дедлайна.
+ */
+final class SyntheticChannel {
+
+    static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private static final int TASK_POSTS = 10;
+    private static final int TEAM_TASKS = 3;
+    private static final int TEAM_SIZE = 5;
+
+    final UUID channelId = new UUID(0, 1);
+    final List<User> students = new ArrayList<>();
+    final List<Post> taskPosts = new ArrayList<>();
+    final List<Post> controlPosts = new ArrayList<>();
+    final List<Task> tasks = new ArrayList<>();
+    final List<Control> controls = new ArrayList<>();
+    final List<Metric> metrics = new ArrayList<>();
+    final List<MetricValue> metricValues = new ArrayList<>();
+    final List<Solution> solutions = new ArrayList<>();
+    final List<Team> teams = new ArrayList<>();
+    final List<TaskSolution> taskSolutions = new ArrayList<>();
+    final Channel channel;
+
+    private final Random random = new Random(42);
+    private long nextId = 1;
+
+    SyntheticChannel(int studentCount) {
+        for (long id = 1; id <= studentCount; id++) {
+            students.add(User.builder()
+                    .id(id)
+                    .firstName("Студент")
+                    .lastName(String.valueOf(id))
+                    .role(List.of(Role.STUDENT))
+                    .build());
+        }
+        channel = new Channel(channelId, "Синтетический предмет", null, null, new LinkedHashSet<>(students),
+                User.builder().id(0L).role(List.of(Role.TEACHER)).build());
+
+        DeadlinePenalty penalty = DeadlinePenalty.builder()
+                .unit(DeadlinePenaltyUnit.DAY)
+                .step(1)
+                .value(0.5)
+                .build();
+
+        for (int p = 0; p < TASK_POSTS; p++) {
+            Instant deadline = NOW.minus(30L - 2L * p, ChronoUnit.DAYS);
+            Post post = Post.builder()
+                    .id(nextUuid())
+                    .label("Задание " + (p + 1))
+                    .type(PostType.TASK)
+                    .channelId(channelId)
+                    .deadline(LocalDateTime.ofInstant(deadline, ZoneOffset.UTC))
+                    .deadlinePenalty(penalty)
+                    .createdAt(LocalDateTime.ofInstant(deadline.minus(7, ChronoUnit.DAYS), ZoneOffset.UTC))
+                    .build();
+            taskPosts.add(post);
+
+            List<Metric> postMetrics = List.of(
+                    metric(post.getId(), null, MetricType.MARK, 0.0),
+                    metric(post.getId(), null, MetricType.MARK, 0.0),
+                    metric(post.getId(), null, MetricType.MARK, 0.0),
+                    metric(post.getId(), null, MetricType.COEFFICIENT, 1.0),
+                    metric(post.getId(), null, MetricType.CONSTRAINT, 10.0));
+            fillValues(postMetrics);
+
+            for (User student : students) {
+                if (random.nextInt(10) < 8) {
+                    solutions.add(Solution.builder()
+                            .id(nextUuid())
+                            .taskId(post.getId())
+                            .studentId(student.getId())
+                            .submittedAt(LocalDateTime.ofInstant(deadline.plus(random.nextInt(96) - 72, ChronoUnit.HOURS), ZoneOffset.UTC))
+                            .build());
+                }
+            }
+        }
+
+        for (int t = 0; t < TEAM_TASKS; t++) {
+            Instant deadline = NOW.minus(10L - 3L * t, ChronoUnit.DAYS);
+            Task task = Task.builder()
+                    .id(nextUuid())
+                    .label("Командное задание " + (t + 1))
+                    .channel(channel)
+                    .deadlinePenalty(penalty)
+                    .startAt(deadline.minus(14, ChronoUnit.DAYS))
+                    .build();
+            tasks.add(task);
+
+            fillValues(List.of(
+                    metric(null, task.getId(), MetricType.MARK, 0.0),
+                    metric(null, task.getId(), MetricType.MARK, 0.0)));
+
+            for (int from = 0; from < students.size(); from += TEAM_SIZE) {
+                Team team = Team.builder()
+                        .id(nextUuid())
+                        .name("Команда " + (from / TEAM_SIZE + 1))
+                        .task(task)
+                        .deadline(deadline)
+                        .users(new HashSet<>(students.subList(from, Math.min(from + TEAM_SIZE, students.size()))))
+                        .build();
+                teams.add(team);
+                task.getTeams().add(team);
+
+                taskSolutions.add(TaskSolution.builder()
+                        .id(nextUuid())
+                        .taskId(task.getId())
+                        .teamId(team.getId())
+                        .studentId(students.get(from).getId())
+                        .isSelected(true)
+                        .createdAt(deadline.plus(random.nextInt(48) - 24, ChronoUnit.HOURS))
+                        .build());
+            }
+        }
+
+        for (int c = 0; c < 2; c++) {
+            Post controlPost = Post.builder()
+                    .id(nextUuid())
+                    .label("Контрольная " + (c + 1))
+                    .type(PostType.CONTROL)
+                    .channelId(channelId)
+                    .createdAt(LocalDateTime.ofInstant(NOW.minus(1, ChronoUnit.DAYS), ZoneOffset.UTC))
+                    .build();
+            controlPosts.add(controlPost);
+            fillValues(List.of(metric(controlPost.getId(), null, MetricType.COEFFICIENT, 1.0)));
+
+            Set<UUID> postTaskIds = new HashSet<>();
+            for (int p = c; p < TASK_POSTS; p += 2) {
+                postTaskIds.add(taskPosts.get(p).getId());
+            }
+            Set<UUID> taskIds = new HashSet<>();
+            for (int t = c; t < TEAM_TASKS; t += 2) {
+                taskIds.add(tasks.get(t).getId());
+            }
+            controls.add(Control.builder()
+                    .postId(controlPost.getId())
+                    .channelId(channelId)
+                    .postTaskIds(postTaskIds)
+                    .taskIds(taskIds)
+                    .build());
+        }
+    }
+
+    List<Metric> metricsOf(UUID targetId) {
+        return metrics.stream()
+                .filter(m -> targetId.equals(m.getPostId()) || targetId.equals(m.getTaskId()))
+                .toList();
+    }
+
+    private void fillValues(List<Metric> targetMetrics) {
+        metrics.addAll(targetMetrics);
+        for (User student : students) {
+            for (Metric metric : targetMetrics) {
+                if (random.nextInt(10) == 0) {
+                    continue;
+                }
+                double value = metric.getType() == MetricType.MARK
+                        ? random.nextInt(11)
+                        : metric.getMinValue() + random.nextDouble() * (metric.getMaxValue() - metric.getMinValue());
+                metricValues.add(MetricValue.builder()
+                        .id(nextUuid())
+                        .metricId(metric.getId())
+                        .userId(student.getId())
+                        .value(value)
+                        .build());
+            }
+        }
+    }
+
+    private Metric metric(UUID postId, UUID taskId, MetricType type, double minValue) {
+        return Metric.builder()
+                .id(nextUuid())
+                .type(type)
+                .postId(postId)
+                .taskId(taskId)
+                .minValue(minValue)
+                .maxValue(type == MetricType.COEFFICIENT ? 1.5 : 10.0)
+                .build();
+    }
+
+    private UUID nextUuid() {
+        return new UUID(1, nextId++);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.hits.car_school_automatization.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.hits.car_school_automatization.service.ChannelMembershipService;
+import ru.hits.car_school_automatization.service.GradeCache;
+import ru.hits.car_school_automatization.service.OrphanFileCollector;
+import ru.hits.car_school_automatization.service.PasswordHashingExecutor;
+import ru.hits.car_school_automatization.service.UserPrincipalCache;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики внутренних кэшей, пула хеширования паролей и сборщика файлов для /actuator/prometheus.
+ * Значения читаются из stats() при каждом снятии метрик, сами эти компоненты о Micrometer не знают.
+ * Метрики с тегами, набор которых известен только во время работы (группы {@code RateLimiter},
+ * эндпоинты {@code QueryStats}, шаги {@code TaskDeadlineScheduler}), регистрируют сами компоненты
+ * через MeterRegistry. Таймеры сервисов задаются аннотацией @Timed, метрики JVM, Hikari и HTTP
+ * публикует Spring Boot.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder gradeCacheMetrics(GradeCache gradeCache) {
+        return registry -> {
+            String name = "grades";
+            gauge(registry, name, "size", gradeCache, cache -> cache.stats().size());
+            counter(registry, name, "hits", gradeCache, cache -> cache.stats().hits());
+            counter(registry, name, "misses", gradeCache, cache -> cache.stats().misses());
+            counter(registry, name, "evictions", gradeCache, cache -> cache.stats().evictions());
+            counter(registry, name, "invalidations", gradeCache, cache -> cache.stats().invalidations());
+        };
+    }
+
+    @Bean
+    public MeterBinder userPrincipalCacheMetrics(UserPrincipalCache userPrincipalCache) {
+        return registry -> {
+            String name = "user-principals";
+            gauge(registry, name, "size", userPrincipalCache, cache -> cache.stats().size());
+            counter(registry, name, "hits", userPrincipalCache, cache -> cache.stats().hits());
+            counter(registry, name, "misses", userPrincipalCache, cache -> cache.stats().misses());
+            counter(registry, name, "evictions", userPrincipalCache, cache -> cache.stats().evictions());
+            counter(registry, name, "invalidations", userPrincipalCache, cache -> cache.stats().invalidations());
+        };
+    }
+
+    @Bean
+    public MeterBinder channelMembershipMetrics(ChannelMembershipService channelMembershipService) {
+        return registry -> {
+            String name = "channel-membership";
+            gauge(registry, name, "size", channelMembershipService, cache -> cache.stats().size());
+            counter(registry, name, "hits", channelMembershipService, cache -> cache.stats().hits());
+            counter(registry, name, "misses", channelMembershipService, cache -> cache.stats().misses());
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingExecutor executor) {
+        return registry -> {
+            Gauge.builder("password.hashing.queue", executor, e -> e.stats().queueDepth())
+                    .description("Задачи хеширования паролей в очереди")
+                    .register(registry);
+            Gauge.builder("password.hashing.active", executor, e -> e.stats().active())
+                    .register(registry);
+            FunctionCounter.builder("password.hashing.completed", executor, e -> e.stats().completed())
+                    .register(registry);
+            FunctionCounter.builder("password.hashing.rejected", executor, e -> e.stats().rejected())
+                    .description("Запросы, отклоненные с 429 из-за переполнения очереди")
+                    .register(registry);
+            Gauge.builder("password.hashing.duration.avg", executor, e -> e.stats().averageHashMillis())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("password.hashing.duration.max", executor, e -> e.stats().maxHashMillis())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("password.hashing.wait.avg", executor, e -> e.stats().averageWaitMillis())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder orphanFileMetrics(OrphanFileCollector collector) {
+        return registry -> {
+            Gauge.builder("file.gc.scanned", collector, c -> c.stats().scanned())
+                    .description("Файлы старше grace-period, проверенные последним проходом")
+                    .register(registry);
+            Gauge.builder("file.gc.orphans", collector, c -> c.stats().orphans())
+                    .description("Файлы без ссылок, найденные последним проходом")
+                    .register(registry);
+            FunctionCounter.builder("file.gc.deleted", collector, c -> c.stats().deleted())
+                    .register(registry);
+            FunctionCounter.builder("file.gc.freed", collector, c -> c.stats().bytesFreed())
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("file.gc.errors", collector, c -> c.stats().errors())
+                    .register(registry);
+        };
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String cache, String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder("app.cache." + name, source, value)
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String cache, String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder("app.cache." + name, source, value)
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
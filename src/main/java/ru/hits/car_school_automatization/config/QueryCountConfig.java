@@ -0,0 +1,38 @@
+package ru.hits.car_school_automatization.config;
+
+import org.hibernate.CallbackException;
+import org.hibernate.Interceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.hits.car_school_automatization.util.QueryCounter;
+
+/**
+ * Подсчет SQL-запросов и загруженных сущностей для {@link QueryCounter}
+ */
+@Configuration
+public class QueryCountConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        StatementInspector statementInspector = sql -> {
+            QueryCounter.statementPrepared();
+            return sql;
+        };
+        Interceptor interceptor = new Interceptor() {
+            @Override
+            public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types)
+                    throws CallbackException {
+                QueryCounter.entityLoaded();
+                return false;
+            }
+        };
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+            properties.put(AvailableSettings.INTERCEPTOR, interceptor);
+        };
+    }
+}
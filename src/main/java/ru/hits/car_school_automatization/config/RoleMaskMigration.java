@@ -0,0 +1,73 @@
+package ru.hits.car_school_automatization.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hits.car_school_automatization.enums.Role;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перенос ролей из прежнего столбца users.role (массив или строка через запятую) в users.role_mask.
+ * <p>
+ * Выполняется после создания всех бинов (схема уже обновлена Hibernate), но до запуска веб-сервера,
+ * поэтому ни один запрос не увидит пользователя с пустой маской и без прав. Переносятся только строки
+ * с пустой маской, повторный запуск ничего не меняет. Прежний столбец не удаляется и продолжает заполняться
+ * из маски (см. {@code User#syncLegacyRole}), чтобы можно было откатить версию.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoleMaskMigration implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void afterSingletonsInstantiated() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE LOWER(table_name) = 'users' AND LOWER(column_name) = 'role'",
+                Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            return;
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, CAST(role AS VARCHAR(255)) AS role FROM users WHERE role_mask = 0 AND role IS NOT NULL",
+                rs -> {
+                    int mask = parseLegacyRoles(rs.getString("role"));
+                    if (mask != 0) {
+                        updates.add(new Object[]{mask, rs.getLong("id")});
+                    }
+                });
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("UPDATE users SET role_mask = ? WHERE id = ?", updates);
+        log.info("Роли {} пользователей перенесены в role_mask", updates.size());
+    }
+
+    /**
+     * Разбирает "{STUDENT,TEACHER}" (массив PostgreSQL) и "STUDENT,TEACHER" (строка); неизвестные роли пропускаются
+     */
+    static int parseLegacyRoles(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int mask = 0;
+        for (String name : value.replaceAll("[{}\"\\s]", "").split(",")) {
+            try {
+                mask |= Role.valueOf(name).bit();
+            } catch (IllegalArgumentException e) {
+                // пустое или устаревшее значение
+            }
+        }
+        return mask;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.hits.car_school_automatization.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +10,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import ru.hits.car_school_automatization.filter.JwtAuthFilter;
 
@@ -34,12 +38,19 @@ public class SecurityConfig {
                 }))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                                // завершение потоковой выгрузки оценок, доступ проверен в исходном запросе
+                                .requestMatchers(new AndRequestMatcher(
+                                        new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+                                        AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/grades/channel/*/table/export")
+                                )).permitAll()
                                 .requestMatchers(
                                         "/swagger-ui/**",
                                         "/swagger-ui.html",
                                         "/v3/api-docs/**",
                                         "/api-docs/**"
                                 ).permitAll()
+                                // метрики для Prometheus, порт управления закрыт от внешней сети
+                                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                                 // эндпоинты /users
                                 .requestMatchers(HttpMethod.POST, "/users").hasRole("MANAGER")
                                 .requestMatchers(HttpMethod.PUT, "/users/**").hasRole("MANAGER")
@@ -0,0 +1,41 @@
+package ru.hits.car_school_automatization.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.hits.car_school_automatization.filter.QueryCountInterceptor;
+import ru.hits.car_school_automatization.filter.RateLimitInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Перехватчики Spring MVC и тайм-аут асинхронных ответов
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final QueryCountInterceptor queryCountInterceptor;
+
+    /**
+     * Потоковые ответы (ZIP-архивы решений, выгрузка оценок, файлы без sendfile) пишутся в async-режиме;
+     * стандартные 30 секунд Tomcat обрывают большой архив на середине
+     */
+    @Value("${web.async.request-timeout:30m}")
+    private Duration asyncRequestTimeout;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+        registry.addInterceptor(queryCountInterceptor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+}
@@ -1,15 +1,20 @@
 package ru.hits.car_school_automatization.controller
 
-import org.springframework.core.io.FileSystemResource
-import org.springframework.core.io.Resource
+import jakarta.servlet.http.HttpServletRequest
+import org.springframework.http.ContentDisposition
 import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
 import org.springframework.http.HttpStatus
 import org.springframework.http.MediaType
 import org.springframework.http.ResponseEntity
+import org.springframework.util.MimeTypeUtils
 import org.springframework.web.bind.annotation.*
+import org.springframework.web.context.request.ServletWebRequest
 import org.springframework.web.server.ResponseStatusException
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody
 import ru.hits.car_school_automatization.service.FileStorageService
-import java.nio.file.Path
+import java.nio.channels.Channels
+import java.nio.charset.StandardCharsets
 
 @RequestMapping("/file")
 @RestController
@@ -17,22 +22,116 @@ open class FileController(
     private val fileStorageService: FileStorageService
 ) {
 
+    /**
+     * Выдача файла с поддержкой Range (в том числе нескольких диапазонов), If-Range,
+     * If-None-Match и If-Modified-Since. Условный запрос отвечает 304 по метаданным, не открывая файл.
+     */
     @GetMapping("/{name}")
-    fun getFile(@PathVariable name: String): ResponseEntity<Resource> {
-        val filePath: Path = fileStorageService.loadAsResource(name)
+    fun getFile(
+        @PathVariable name: String,
+        @RequestHeader headers: HttpHeaders,
+        request: HttpServletRequest,
+        webRequest: ServletWebRequest,
+    ): ResponseEntity<StreamingResponseBody>? {
+        val file = fileStorageService.describe(name)
             ?: throw ResponseStatusException(HttpStatus.NOT_FOUND, "File not found")
 
-        val resource = FileSystemResource(filePath)
+        if (webRequest.checkNotModified(file.etag, file.lastModified)) {
+            return null
+        }
 
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"${filePath.fileName}\"")
-            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-            .contentLength(filePath.toFile().length())
-            .body(resource)
+        val responseHeaders = HttpHeaders().apply {
+            eTag = file.etag
+            lastModified = file.lastModified
+            set(HttpHeaders.ACCEPT_RANGES, "bytes")
+            contentDisposition = ContentDisposition.attachment()
+                .filename(file.path.fileName.toString(), StandardCharsets.UTF_8)
+                .build()
+        }
+
+        val ranges = if (isRangeApplicable(headers, file)) toRanges(headers, file.size) else emptyList()
+        if (ranges == null) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */${file.size}")
+                .headers(responseHeaders)
+                .build()
+        }
+
+        if (ranges.size > 1) {
+            val boundary = MimeTypeUtils.generateMultipartBoundaryString()
+            val body = StreamingResponseBody { out ->
+                val channel = Channels.newChannel(out)
+                for (range in ranges) {
+                    out.write(partHeader(boundary, file, range))
+                    out.flush()
+                    fileStorageService.transfer(file.path, range.first, range.last - range.first + 1, channel)
+                }
+                out.write("\r\n--$boundary--\r\n".toByteArray(StandardCharsets.US_ASCII))
+            }
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(responseHeaders)
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=$boundary"))
+                .body(body)
+        }
+
+        val range = ranges.firstOrNull() ?: 0L until file.size
+        val length = range.last - range.first + 1
+        val status = if (ranges.isEmpty()) HttpStatus.OK else HttpStatus.PARTIAL_CONTENT
+        if (ranges.isNotEmpty()) {
+            responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes ${range.first}-${range.last}/${file.size}")
+        }
+        val response = ResponseEntity.status(status)
+            .headers(responseHeaders)
+            .contentType(file.contentType)
+            .contentLength(length)
+
+        // Tomcat отдает файл через sendfile сам, после того как контроллер вернул только заголовки
+        if (request.getAttribute(SENDFILE_SUPPORT) == true && HttpMethod.GET.matches(request.method) && length > 0) {
+            request.setAttribute(SENDFILE_FILENAME, file.path.toString())
+            request.setAttribute(SENDFILE_START, range.first)
+            request.setAttribute(SENDFILE_END, range.last + 1)
+            return response.build()
+        }
+        return response.body(StreamingResponseBody { out ->
+            fileStorageService.transfer(file.path, range.first, length, Channels.newChannel(out))
+        })
     }
 
-    @DeleteMapping("/{name}")
-    fun deleteFile(@PathVariable name: String) {
-        return fileStorageService.delete(name)
+    /**
+     * If-Range: диапазон отдается, только если файл не изменился с указанной версии
+     */
+    private fun isRangeApplicable(headers: HttpHeaders, file: FileStorageService.StoredFile): Boolean {
+        if (headers.getFirst(HttpHeaders.RANGE) == null) return false
+        val ifRange = headers.getFirst(HttpHeaders.IF_RANGE) ?: return true
+        if (ifRange.startsWith("\"")) return ifRange == file.etag
+        val date = runCatching { headers.getFirstDate(HttpHeaders.IF_RANGE) }.getOrDefault(-1L)
+        return date >= 0 && file.lastModified / 1000 == date / 1000
+    }
+
+    /**
+     * @return диапазоны байтов или null, если их нельзя удовлетворить
+     */
+    private fun toRanges(headers: HttpHeaders, size: Long): List<LongRange>? {
+        val ranges = try {
+            headers.range.map { it.getRangeStart(size)..it.getRangeEnd(size) }
+        } catch (e: IllegalArgumentException) {
+            return null
+        }
+        // Диапазон, начинающийся за концом файла, пуст; перекрывающиеся диапазоны не должны давать ответ больше самого файла
+        if (ranges.any { it.first >= size || it.isEmpty() }) return null
+        return if (ranges.sumOf { it.last - it.first + 1 } > size) null else ranges
+    }
+
+    private fun partHeader(boundary: String, file: FileStorageService.StoredFile, range: LongRange): ByteArray =
+        ("\r\n--$boundary\r\n" +
+                "${HttpHeaders.CONTENT_TYPE}: ${file.contentType}\r\n" +
+                "${HttpHeaders.CONTENT_RANGE}: bytes ${range.first}-${range.last}/${file.size}\r\n\r\n")
+            .toByteArray(StandardCharsets.US_ASCII)
+
+    private companion object {
+        const val SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support"
+        const val SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename"
+        const val SENDFILE_START = "org.apache.tomcat.sendfile.start"
+        const val SENDFILE_END = "org.apache.tomcat.sendfile.end"
     }
-}
\ No newline at end of file
+}
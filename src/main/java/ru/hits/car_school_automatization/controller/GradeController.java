@@ -3,13 +3,27 @@ package ru.hits.car_school_automatization.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.hits.car_school_automatization.dto.ChannelGradeBatchDto;
+import ru.hits.car_school_automatization.dto.ChannelUserGradeDto;
 import ru.hits.car_school_automatization.dto.GradeDto;
+import ru.hits.car_school_automatization.dto.GradeSimulationDto;
+import ru.hits.car_school_automatization.dto.GradeSimulationResultDto;
 import ru.hits.car_school_automatization.dto.GradeTableDto;
 import ru.hits.car_school_automatization.dto.UserGradeDto;
+import ru.hits.car_school_automatization.enums.GradeExportFormat;
+import ru.hits.car_school_automatization.service.GradeExportService;
 import ru.hits.car_school_automatization.service.GradeService;
+import ru.hits.car_school_automatization.service.GradeSimulationService;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,6 +34,8 @@ import java.util.UUID;
 public class GradeController {
 
     private final GradeService gradeService;
+    private final GradeExportService gradeExportService;
+    private final GradeSimulationService gradeSimulationService;
 
     @GetMapping("/post/{postId}")
     @Operation(summary = "Получить оценку за пост (для текущего пользователя)")
@@ -105,6 +121,23 @@ public class GradeController {
                 .build();
     }
 
+    @PostMapping("/channel/batch")
+    @Operation(summary = "Получить оценки за предметы для набора пар (предмет, пользователь)")
+    public List<ChannelUserGradeDto> getChannelGrades(
+            @Valid @RequestBody ChannelGradeBatchDto dto,
+            @Parameter(hidden = true) @RequestHeader("Authorization") String authHeader) {
+        return gradeService.getChannelGrades(dto, authHeader);
+    }
+
+    @PostMapping("/channel/{channelId}/simulate")
+    @Operation(summary = "Рассчитать оценки по предмету с гипотетическими значениями критериев и штрафами (без сохранения)")
+    public GradeSimulationResultDto simulateChannelGrade(
+            @PathVariable UUID channelId,
+            @RequestBody GradeSimulationDto dto,
+            @Parameter(hidden = true) @RequestHeader("Authorization") String authHeader) {
+        return gradeSimulationService.simulate(channelId, dto, authHeader);
+    }
+
     @GetMapping("/channel/{channelId}/table")
     @Operation(summary = "Получить таблицу оценок по предмету")
     public GradeTableDto getChannelGradeTable(
@@ -114,6 +147,26 @@ public class GradeController {
         return gradeService.getChannelGradeTable(channelId, userId, authHeader);
     }
 
+    @GetMapping("/channel/{channelId}/table/export")
+    @Operation(summary = "Выгрузить таблицу оценок по предмету в CSV или NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportChannelGradeTable(
+            @PathVariable UUID channelId,
+            @RequestParam(defaultValue = "CSV") GradeExportFormat format,
+            @Parameter(hidden = true) @RequestHeader("Authorization") String authHeader) {
+        gradeExportService.checkExportAccess(channelId, authHeader);
+
+        boolean csv = format == GradeExportFormat.CSV;
+        String filename = "grades-" + channelId + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = out -> gradeExportService.export(channelId, format, out);
+
+        return ResponseEntity.ok()
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
     @GetMapping("/channel/{channelId}/user/{userId}")
     @Operation(summary = "Получить оценку за предмет для пользователя")
     public GradeDto getChannelGradeForUser(
@@ -11,12 +11,14 @@ import ru.hits.car_school_automatization.dto.MetricValueHistoryDto;
 import ru.hits.car_school_automatization.dto.MetricWithValuesDto;
 import ru.hits.car_school_automatization.dto.SetMetricValueDto;
 import ru.hits.car_school_automatization.dto.SetTeamMetricValueDto;
+import ru.hits.car_school_automatization.filter.RateLimited;
 import ru.hits.car_school_automatization.service.MetricValueService;
 
 import java.util.List;
 import java.util.UUID;
 
 @RestController
+@RateLimited("metric-values")
 @RequestMapping("/api/metrics")
 @RequiredArgsConstructor
 @Tag(name = "Значения критериев", description = "Управление значениями критериев")
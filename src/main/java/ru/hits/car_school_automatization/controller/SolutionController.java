@@ -5,25 +5,33 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.hits.car_school_automatization.dto.SolutionDto;
 import ru.hits.car_school_automatization.dto.SubmitSolutionDto;
 import ru.hits.car_school_automatization.dto.TaskWithSolutionDto;
 import ru.hits.car_school_automatization.dto.UpdateSolutionDto;
+import ru.hits.car_school_automatization.filter.RateLimited;
+import ru.hits.car_school_automatization.service.SolutionArchiveService;
 import ru.hits.car_school_automatization.service.SolutionService;
 
 import java.util.List;
 import java.util.UUID;
 
 @RestController
+@RateLimited("solutions")
 @RequestMapping("/solutions")
 @RequiredArgsConstructor
 @Tag(name = "Решения заданий", description = "Управление решениями студентов и их оценками")
 public class SolutionController {
 
     private final SolutionService solutionService;
+    private final SolutionArchiveService solutionArchiveService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
@@ -67,6 +75,22 @@ public class SolutionController {
         return solutionService.getTaskSolutions(taskId, authHeader);
     }
 
+    @GetMapping("/task/{taskId}/archive")
+    @Operation(summary = "Скачать файлы решений по заданию ZIP-архивом (студент/файл)")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @PathVariable UUID taskId,
+            @RequestParam(required = false) List<UUID> solutionIds,
+            @Parameter(hidden = true) @RequestHeader("Authorization") String authHeader) {
+        List<SolutionArchiveService.Entry> entries = solutionArchiveService.planPostArchive(taskId, solutionIds, authHeader);
+        StreamingResponseBody body = out -> solutionArchiveService.write(entries, out);
+
+        return ResponseEntity.ok()
+                .contentType(SolutionArchiveService.ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("solutions-" + taskId + ".zip").build().toString())
+                .body(body);
+    }
+
     @GetMapping("/student/{studentId}/channel/{channelId}/tasks")
     @Operation(summary = "Получить задачи студента с решениями в канале")
     public List<TaskWithSolutionDto> getStudentTasksWithSolutions(
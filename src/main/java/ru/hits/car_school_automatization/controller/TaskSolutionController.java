@@ -5,22 +5,30 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.hits.car_school_automatization.dto.*;
+import ru.hits.car_school_automatization.filter.RateLimited;
+import ru.hits.car_school_automatization.service.SolutionArchiveService;
 import ru.hits.car_school_automatization.service.TaskSolutionService;
 
 import java.util.List;
 import java.util.UUID;
 
 @RestController
+@RateLimited("task-solutions")
 @RequestMapping("/api/task-solutions")
 @RequiredArgsConstructor
 @Tag(name = "TaskSolution", description = "CRUD для решений командных заданий")
 public class TaskSolutionController {
 
     private final TaskSolutionService taskSolutionService;
+    private final SolutionArchiveService solutionArchiveService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
@@ -51,6 +59,25 @@ public class TaskSolutionController {
         return taskSolutionService.getByTask(taskId, authHeader);
     }
 
+    @GetMapping("/task/{taskId}/archive")
+    @Operation(summary = "Скачать файлы решений по заданию ZIP-архивом (команда/студент/файл)")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @PathVariable UUID taskId,
+            @RequestParam(defaultValue = "false") boolean selectedOnly,
+            @RequestParam(required = false) List<UUID> solutionIds,
+            @Parameter(hidden = true) @RequestHeader("Authorization") String authHeader
+    ) {
+        List<SolutionArchiveService.Entry> entries =
+                solutionArchiveService.planTaskArchive(taskId, selectedOnly, solutionIds, authHeader);
+        StreamingResponseBody body = out -> solutionArchiveService.write(entries, out);
+
+        return ResponseEntity.ok()
+                .contentType(SolutionArchiveService.ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("solutions-" + taskId + ".zip").build().toString())
+                .body(body);
+    }
+
     @GetMapping("/my")
     @Operation(summary = "Получить мои решения")
     public List<TaskSolutionDto> getMySolutions(
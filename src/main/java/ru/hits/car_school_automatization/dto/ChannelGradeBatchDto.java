@@ -0,0 +1,39 @@
+package ru.hits.car_school_automatization.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// пакетный запрос оценок за предметы
+public class ChannelGradeBatchDto {
+
+    @NotEmpty
+    @Size(max = 1000)
+    @Valid
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull
+        private UUID channelId;
+
+        @NotNull
+        private Long userId;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.hits.car_school_automatization.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// оценка пользователя за предмет
+public class ChannelUserGradeDto {
+    private UUID channelId;
+    private Long userId;
+    private Double value;
+}
@@ -0,0 +1,29 @@
+package ru.hits.car_school_automatization.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// гипотетические значения для расчета "что если"
+public class GradeSimulationDto {
+
+    // по умолчанию — текущий пользователь
+    private Long userId;
+
+    // id критерия -> значение; null — как будто значения нет
+    @Builder.Default
+    private Map<UUID, Double> metricValues = new HashMap<>();
+
+    // id поста или задания -> штраф за дедлайн; null — без штрафа
+    @Builder.Default
+    private Map<UUID, DeadlinePenaltyDto> penalties = new HashMap<>();
+}
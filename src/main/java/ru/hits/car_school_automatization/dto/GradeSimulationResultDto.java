@@ -0,0 +1,16 @@
+package ru.hits.car_school_automatization.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// текущие и смоделированные оценки пользователя по предмету
+public class GradeSimulationResultDto {
+    private GradeTableRowDto current;
+    private GradeTableRowDto simulated;
+}
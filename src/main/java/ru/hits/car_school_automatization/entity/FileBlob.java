@@ -0,0 +1,38 @@
+package ru.hits.car_school_automatization.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Файл в хранилище загрузок, на который ссылаются несколько сущностей.
+ * <p>
+ * В режиме хранения по содержимому имя файла — SHA-256 содержимого с расширением, поэтому одинаковые
+ * загрузки хранятся одним файлом. Файл удаляется, когда счетчик ссылок доходит до нуля.
+ * Файл без записи принадлежит одной сущности (прежние загрузки с именем UUID).
+ */
+@Entity
+@Table(name = "file_blobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileBlob {
+
+    @Id
+    @Column(name = "name", length = 128)
+    private String name;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
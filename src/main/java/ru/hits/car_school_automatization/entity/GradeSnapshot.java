@@ -0,0 +1,63 @@
+package ru.hits.car_school_automatization.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.hits.car_school_automatization.enums.GradeTargetType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Сохраненная оценка студента за завершенное задание (дедлайн и дедлайн P2P прошли).
+ * value == null означает, что оценка еще зависит от времени (штраф за несданное решение растет)
+ * и считается на лету.
+ */
+@Entity
+@Table(name = "grade_snapshots",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"target_id", "user_id"})
+        },
+        indexes = {
+                @Index(name = "idx_grade_snapshots_stale", columnList = "stale"),
+                @Index(name = "idx_grade_snapshots_channel_user", columnList = "channel_id, user_id")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "channel_id", nullable = false)
+    private UUID channelId;
+
+    @Column(name = "target_id", nullable = false)
+    private UUID targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false)
+    private GradeTargetType targetType;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "grade_value")
+    private Double value;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean stale = false;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+
+    // Пометка устаревшим увеличивает версию, поэтому пересчет, начатый до записи, не затрет пометку
+    @Version
+    private Long version;
+}
@@ -0,0 +1,34 @@
+package ru.hits.car_school_automatization.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Завершенное задание, для которого снимки оценок уже создавались. Запись появляется, даже если
+ * в предмете не было студентов и снимков нет, поэтому фоновый пересчет не находит задание снова
+ * на каждом проходе. Изменение задания удаляет запись, и задание обрабатывается заново.
+ */
+@Entity
+@Table(name = "grade_snapshot_targets")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeSnapshotTarget {
+
+    @Id
+    @Column(name = "target_id")
+    private UUID targetId;
+
+    @Column(name = "channel_id", nullable = false)
+    private UUID channelId;
+
+    @Column(name = "snapshotted_at", nullable = false)
+    private Instant snapshottedAt;
+}
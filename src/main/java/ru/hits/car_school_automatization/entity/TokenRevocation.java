@@ -0,0 +1,30 @@
+package ru.hits.car_school_automatization.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Момент последнего отзыва токенов пользователя для режима аутентификации без обращения к БД.
+ * Токены, выданные раньше этого момента, отклоняются. Запись не зависит от строки users,
+ * поэтому отзыв действует и для удаленного пользователя.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = @Index(name = "idx_token_revocations_revoked_at", columnList = "revoked_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+}
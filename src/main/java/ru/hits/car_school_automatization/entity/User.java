@@ -2,12 +2,14 @@ package ru.hits.car_school_automatization.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.jspecify.annotations.Nullable;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import ru.hits.car_school_automatization.enums.Role;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -16,7 +18,7 @@ import java.util.Set;
  * Сущность пользователя системы автошколы
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_role_mask", columnList = "role_mask"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,16 +48,51 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String passwordHash;
 
+    /**
+     * Роли битовой маской, см. {@link Role#bit()}; список ролей доступен через {@link #getRole()}
+     */
+    @Column(name = "role_mask", nullable = false)
+    @ColumnDefault("0")
+    private int roleMask;
+
+    /**
+     * Прежний столбец users.role. Заполняется из маски при каждом сохранении, чтобы на один релиз
+     * оставить возможность откатиться на версию, которая читает только его
+     */
+    @Column(name = "role")
     @Enumerated(EnumType.STRING)
-    private List<Role> role;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<Role> legacyRole;
 
     @Column(nullable = false)
     @Builder.Default
     private Boolean isActive = true;
 
+    public List<Role> getRole() {
+        return Role.fromMask(roleMask);
+    }
+
+    public void setRole(List<Role> role) {
+        this.roleMask = Role.toMask(role);
+    }
+
+    public boolean hasRole(Role role) {
+        return (roleMask & role.bit()) != 0;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncLegacyRole() {
+        legacyRole = roleMask == 0 ? null : Role.fromMask(roleMask);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return role.stream().map(role1 -> new SimpleGrantedAuthority("ROLE_" + role1.name())).toList();
+        return Arrays.stream(Role.values())
+                .filter(this::hasRole)
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList();
     }
 
     @Override
@@ -71,4 +108,12 @@ public class User implements UserDetails {
     @ManyToMany(fetch = FetchType.EAGER)
     @Column(nullable = false)
     private Set<Channel> channels;
+
+    public static class UserBuilder {
+
+        public UserBuilder role(List<Role> role) {
+            this.roleMask = Role.toMask(role);
+            return this;
+        }
+    }
 }
@@ -0,0 +1,6 @@
+package ru.hits.car_school_automatization.enums;
+
+public enum GradeExportFormat {
+    CSV,
+    NDJSON
+}
@@ -1,10 +1,72 @@
 package ru.hits.car_school_automatization.enums;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
- * Роли пользователей в системе автошколы
+ * Роли пользователей в системе автошколы.
+ * <p>
+ * Набор ролей хранится битовой маской (users.role_mask), бит роли — ее порядковый номер,
+ * поэтому новые роли добавляются только в конец.
  */
 public enum Role {
     STUDENT,
     TEACHER,
-    MANAGER
+    MANAGER;
+
+    private static final Role[] VALUES = values();
+
+    /**
+     * Неизменяемые списки ролей для каждой маски, чтобы чтение ролей не выделяло память
+     */
+    private static final List<List<Role>> LISTS_BY_MASK;
+
+    static {
+        List<List<Role>> lists = new ArrayList<>(1 << VALUES.length);
+        for (int mask = 0; mask < 1 << VALUES.length; mask++) {
+            List<Role> roles = new ArrayList<>();
+            for (Role role : VALUES) {
+                if ((mask & role.bit()) != 0) {
+                    roles.add(role);
+                }
+            }
+            lists.add(List.copyOf(roles));
+        }
+        LISTS_BY_MASK = List.copyOf(lists);
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<Role> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Role role : roles) {
+                mask |= role.bit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Роли маски в порядке объявления
+     */
+    public static List<Role> fromMask(int mask) {
+        return LISTS_BY_MASK.get(mask & ((1 << VALUES.length) - 1));
+    }
+
+    /**
+     * Все маски, содержащие роль: фильтр role_mask IN (...) использует индекс, в отличие от битовой операции
+     */
+    public static List<Integer> masksWith(Role role) {
+        List<Integer> masks = new ArrayList<>();
+        for (int mask = 0; mask < 1 << VALUES.length; mask++) {
+            if ((mask & role.bit()) != 0) {
+                masks.add(mask);
+            }
+        }
+        return masks;
+    }
 }
@@ -0,0 +1,11 @@
+package ru.hits.car_school_automatization.exception;
+
+/**
+ * Исключение (HTTP 429)
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -8,13 +8,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import ru.hits.car_school_automatization.entity.User;
 import ru.hits.car_school_automatization.exception.NotFoundException;
 import ru.hits.car_school_automatization.repository.UserRepository;
+import ru.hits.car_school_automatization.service.JwtPrincipal;
 import ru.hits.car_school_automatization.service.JwtTokenProvider;
+import ru.hits.car_school_automatization.service.UserPrincipalCache;
 
 import java.io.IOException;
 
@@ -28,6 +32,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtProvider;
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
     @Override
     protected void doFilterInternal(
@@ -37,11 +43,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String token = getTokenFromRequest(request);
+            // Подпись проверяется один раз; сервисы берут принципал из контекста
+            JwtPrincipal principal = token != null ? jwtProvider.parse(token).orElse(null) : null;
 
-            if (token != null && jwtProvider.validateToken(token)) {
+            if (principal != null) {
 
-                Long id = jwtProvider.getUserIdFromToken(token);
-                User userDetails = userRepository.findById(id)
+                Long id = principal.userId();
+                // В режиме без БД пользователь собирается из claims; отозванный токен отклонен в parse
+                User userDetails = jwtProvider.isStateless()
+                        ? User.builder().id(id).role(principal.roles()).build()
+                        : userPrincipalCache.get(id, userRepository::findById)
                         .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -49,8 +60,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                         null, // Пароль не нужен, т.к. используем JWT
                         userDetails.getAuthorities()
                 );
+                authentication.setDetails(principal);
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                // Потоковые ответы завершаются async-диспатчем в другом потоке, он берет аутентификацию из запроса
+                securityContextRepository.saveContext(SecurityContextHolder.getContext(), request, response);
             }
         } catch (Exception e) {
             log.error("Ошибка при настройке authorities: {}", e.getMessage());
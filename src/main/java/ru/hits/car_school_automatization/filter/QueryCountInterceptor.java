@@ -0,0 +1,40 @@
+package ru.hits.car_school_automatization.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.hits.car_school_automatization.service.QueryStats;
+import ru.hits.car_school_automatization.util.QueryCounter;
+
+/**
+ * Считает SQL-запросы и загруженные сущности от вызова контроллера до завершения запроса
+ * и записывает их в {@link QueryStats} по методу контроллера
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".start";
+
+    private final QueryStats queryStats;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, QueryCounter.snapshot());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (handler instanceof HandlerMethod handlerMethod
+                && request.getAttribute(START_ATTRIBUTE) instanceof QueryCounter.Counts start) {
+            String endpoint = handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+            queryStats.record(endpoint, QueryCounter.snapshot().minus(start));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.hits.car_school_automatization.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.exception.TooManyRequestsException;
+import ru.hits.car_school_automatization.service.RateLimiter;
+
+import java.util.Set;
+
+/**
+ * Ограничивает изменяющие запросы к контроллерам с {@link RateLimited} до вызова контроллера,
+ * то есть до любых обращений к репозиториям
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final Set<String> READ_METHODS = Set.of(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || READ_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            return true;
+        }
+        if (!rateLimiter.tryAcquire(rateLimited.value(), user.getId())) {
+            throw new TooManyRequestsException("Слишком много запросов, повторите попытку позже");
+        }
+        return true;
+    }
+}
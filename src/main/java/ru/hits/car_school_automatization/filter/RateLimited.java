@@ -0,0 +1,20 @@
+package ru.hits.car_school_automatization.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Группа маршрутов контроллера, изменяющие запросы которой ограничиваются
+ * по пользователю через {@link RateLimitInterceptor}
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    /**
+     * Имя группы; лимиты задаются в rate-limit.groups.&lt;имя&gt;
+     */
+    String value();
+}
@@ -0,0 +1,36 @@
+package ru.hits.car_school_automatization.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.hits.car_school_automatization.util.RequestId;
+
+import java.io.IOException;
+
+/**
+ * Присваивает запросу идентификатор (из заголовка X-Request-Id или новый) и возвращает его в ответе
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String requestId = RequestId.start(request.getHeader(RequestId.HEADER));
+        response.setHeader(RequestId.HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestId.clear();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.hits.car_school_automatization.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Запись или чтение файла в хранилище загрузок
+ */
+@Name("ru.hits.carschool.FileIo")
+@Label("File Storage I/O")
+@StackTrace(false)
+public final class FileIoEvent extends RequestEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("File Name")
+    String filename;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public void commit(String operation, String filename, long bytes) {
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.filename = filename;
+            this.bytes = bytes;
+            commitWithRequestId();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.hits.car_school_automatization.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Сборка таблицы оценок предмета
+ */
+@Name("ru.hits.carschool.GradeTable")
+@Label("Grade Table")
+@Description("Сборка таблицы оценок предмета")
+@StackTrace(false)
+public final class GradeTableEvent extends RequestEvent {
+
+    @Label("Channel Id")
+    String channelId;
+
+    @Label("Students")
+    int students;
+
+    @Label("Targets")
+    @Description("Число столбцов таблицы: заданий, командных заданий и контрольных")
+    int targets;
+
+    public void commit(UUID channelId, int students, int targets) {
+        if (shouldCommit()) {
+            this.channelId = String.valueOf(channelId);
+            this.students = students;
+            this.targets = targets;
+            commitWithRequestId();
+        }
+    }
+}
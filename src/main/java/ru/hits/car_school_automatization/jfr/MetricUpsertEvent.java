@@ -0,0 +1,34 @@
+package ru.hits.car_school_automatization.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Запись значения критерия оценки
+ */
+@Name("ru.hits.carschool.MetricUpsert")
+@Label("Metric Value Upsert")
+@StackTrace(false)
+public final class MetricUpsertEvent extends RequestEvent {
+
+    @Label("Metric Id")
+    String metricId;
+
+    @Label("User Id")
+    long userId;
+
+    @Label("Created")
+    boolean created;
+
+    public void commit(UUID metricId, Long userId, boolean created) {
+        if (shouldCommit()) {
+            this.metricId = String.valueOf(metricId);
+            this.userId = userId != null ? userId : 0L;
+            this.created = created;
+            commitWithRequestId();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.hits.car_school_automatization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import ru.hits.car_school_automatization.util.RequestId;
+
+/**
+ * Базовое событие JFR приложения, привязанное к идентификатору запроса.
+ * <p>
+ * Наследники заполняют поля только после {@link #shouldCommit()}, поэтому при выключенной записи
+ * событие стоит создания одного объекта, которое JIT обычно убирает.
+ */
+@Category({"Car School", "Application"})
+abstract class RequestEvent extends Event {
+
+    @Label("Request Id")
+    @Description("Идентификатор HTTP-запроса или прохода планировщика")
+    String requestId;
+
+    /**
+     * Вызывается наследником после проверки {@link #shouldCommit()}
+     */
+    final void commitWithRequestId() {
+        requestId = RequestId.current();
+        commit();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.hits.car_school_automatization.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Один проход планировщика дедлайнов
+ */
+@Name("ru.hits.carschool.SchedulerPass")
+@Label("Deadline Scheduler Pass")
+@StackTrace(false)
+public final class SchedulerPassEvent extends RequestEvent {
+
+    @Label("Tasks Scanned")
+    int tasksScanned;
+
+    @Label("Teams Processed")
+    int teamsProcessed;
+
+    @Label("Posts Scanned")
+    int postsScanned;
+
+    @Label("P2P Pairs Expired")
+    int p2pPairsExpired;
+
+    @Label("Errors")
+    int errors;
+
+    public void commit(int tasksScanned, int teamsProcessed, int postsScanned, int p2pPairsExpired, int errors) {
+        if (shouldCommit()) {
+            this.tasksScanned = tasksScanned;
+            this.teamsProcessed = teamsProcessed;
+            this.postsScanned = postsScanned;
+            this.p2pPairsExpired = p2pPairsExpired;
+            this.errors = errors;
+            commitWithRequestId();
+        }
+    }
+}
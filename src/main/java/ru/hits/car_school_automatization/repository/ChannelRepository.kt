@@ -1,11 +1,15 @@
 package ru.hits.car_school_automatization.repository
 
+import jakarta.persistence.QueryHint
+import org.hibernate.jpa.HibernateHints
 import org.springframework.data.jpa.repository.JpaRepository
 import org.springframework.data.jpa.repository.Query
+import org.springframework.data.jpa.repository.QueryHints
 import org.springframework.stereotype.Repository
 import ru.hits.car_school_automatization.entity.Channel
 import ru.hits.car_school_automatization.entity.User
 import java.util.*
+import java.util.stream.Stream
 
 @Repository
 interface ChannelRepository : JpaRepository<Channel, UUID> {
@@ -17,4 +21,23 @@ interface ChannelRepository : JpaRepository<Channel, UUID> {
 
     @Query("SELECT c FROM Channel c JOIN c.users u WHERE u.id = :userId")
     fun getUsersChannelByUserId(userId: Long): List<Channel>
-}
\ No newline at end of file
+
+    @Query("SELECT c.id FROM Channel c JOIN c.users u WHERE u.id = :userId")
+    fun findChannelIdsByUserId(userId: Long): List<UUID>
+
+    // Id участников предмета, у которых маска ролей из списка (см. Role.masksWith), по возрастанию
+    @Query("SELECT u.id FROM Channel c JOIN c.users u WHERE c.id = :channelId AND u.roleMask IN :roleMasks ORDER BY u.id")
+    fun findUserIdsByChannelIdAndRoleMaskIn(channelId: UUID, roleMasks: Collection<Int>): List<Long>
+
+    // Ссылки на изображения предметов, читаются потоком без загрузки сущностей
+    @QueryHints(
+        QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    )
+    @Query("SELECT c.image FROM Channel c WHERE c.image IS NOT NULL")
+    fun streamImages(): Stream<String>
+
+    // Ссылается ли изображение предмета на файл с таким именем; проверка перед удалением файла без ссылок
+    @Query("SELECT COUNT(c) > 0 FROM Channel c WHERE c.image LIKE CONCAT('%/file/', :name)")
+    fun existsImageReference(name: String): Boolean
+}
@@ -1,5 +1,6 @@
 package ru.hits.car_school_automatization.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Control;
@@ -10,4 +11,7 @@ import java.util.UUID;
 @Repository
 public interface ControlRepository extends JpaRepository<Control, UUID> {
     List<Control> findByChannelId(UUID channelId);
+
+    @EntityGraph(attributePaths = {"postTaskIds", "taskIds"})
+    List<Control> findWithTargetsByChannelId(UUID channelId);
 }
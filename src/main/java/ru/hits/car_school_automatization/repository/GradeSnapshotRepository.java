@@ -0,0 +1,47 @@
+package ru.hits.car_school_automatization.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.hits.car_school_automatization.entity.GradeSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public interface GradeSnapshotRepository extends JpaRepository<GradeSnapshot, UUID> {
+
+    Optional<GradeSnapshot> findByTargetIdAndUserId(UUID targetId, Long userId);
+
+    List<GradeSnapshot> findByTargetId(UUID targetId);
+
+    List<GradeSnapshot> findByStaleTrue(Pageable pageable);
+
+    // Актуальные оценки из снимков для студентов предмета; устаревшие и зависящие от времени (value IS NULL) считаются на лету
+    @Query("SELECT s FROM GradeSnapshot s WHERE s.channelId = :channelId AND s.userId IN :userIds " +
+            "AND s.stale = false AND s.value IS NOT NULL")
+    List<GradeSnapshot> findFreshByChannelIdAndUserIdIn(@Param("channelId") UUID channelId,
+                                                        @Param("userIds") Collection<Long> userIds);
+
+    // Цели, для которых снимки уже созданы
+    @Query("SELECT DISTINCT s.targetId FROM GradeSnapshot s WHERE s.targetId IN :targetIds")
+    Set<UUID> findSnapshotTargetIds(@Param("targetIds") Collection<UUID> targetIds);
+
+    @Modifying
+    @Query("UPDATE GradeSnapshot s SET s.stale = true, s.version = s.version + 1 WHERE s.targetId = :targetId AND s.userId = :userId")
+    int markStale(@Param("targetId") UUID targetId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE GradeSnapshot s SET s.stale = true, s.version = s.version + 1 WHERE s.targetId = :targetId")
+    int markTargetStale(@Param("targetId") UUID targetId);
+
+    @Modifying
+    @Query("DELETE FROM GradeSnapshot s WHERE s.targetId = :targetId")
+    void deleteByTargetId(@Param("targetId") UUID targetId);
+}
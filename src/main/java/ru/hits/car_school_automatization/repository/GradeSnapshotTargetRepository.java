@@ -0,0 +1,18 @@
+package ru.hits.car_school_automatization.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.hits.car_school_automatization.entity.GradeSnapshotTarget;
+
+import java.util.UUID;
+
+@Repository
+public interface GradeSnapshotTargetRepository extends JpaRepository<GradeSnapshotTarget, UUID> {
+
+    @Modifying
+    @Query("DELETE FROM GradeSnapshotTarget t WHERE t.targetId = :targetId")
+    void deleteByTargetId(@Param("targetId") UUID targetId);
+}
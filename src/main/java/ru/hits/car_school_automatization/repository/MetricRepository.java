@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Metric;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,5 +14,9 @@ public interface MetricRepository extends JpaRepository<Metric, UUID> {
 
     List<Metric> findByTaskId(UUID taskId);
 
+    List<Metric> findByPostIdIn(Collection<UUID> postIds);
+
+    List<Metric> findByTaskIdIn(Collection<UUID> taskIds);
+
     boolean existsByPostId(UUID postId);
 }
@@ -16,5 +16,7 @@ public interface MetricValueRepository extends JpaRepository<MetricValue, UUID>
 
     List<MetricValue> findByMetricIdIn(List<UUID> metricIds);
 
+    List<MetricValue> findByMetricIdInAndUserIdIn(List<UUID> metricIds, List<Long> userIds);
+
     List<MetricValue> findByMetricId(UUID metricId);
 }
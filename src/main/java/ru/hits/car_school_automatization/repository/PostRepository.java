@@ -1,7 +1,10 @@
 package ru.hits.car_school_automatization.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Post;
@@ -9,6 +12,7 @@ import ru.hits.car_school_automatization.enums.PostType;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, UUID> {
@@ -24,4 +28,22 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
     List<Post> getPostById(UUID id);
 
     List<Post> findByDeadlineBefore(java.time.LocalDateTime now);
+
+    // Посты с прошедшим дедлайном, для которых снимки оценок еще не создавались
+    @Query("SELECT p FROM Post p WHERE p.type = :type AND p.deadline < :now " +
+            "AND NOT EXISTS (SELECT g FROM GradeSnapshotTarget g WHERE g.targetId = p.id)")
+    List<Post> findUnsnapshottedByTypeAndDeadlineBefore(@Param("type") PostType type,
+                                                        @Param("now") java.time.LocalDateTime now);
+
+    // Ссылки на файлы постов, читаются потоком без загрузки сущностей
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.fileUrl FROM Post p WHERE p.fileUrl IS NOT NULL")
+    Stream<String> streamFileUrls();
+
+    // Ссылается ли пост на файл с таким именем; проверка перед удалением файла без ссылок
+    @Query("SELECT COUNT(p) > 0 FROM Post p WHERE p.fileUrl LIKE CONCAT('%/file/', :name)")
+    boolean existsFileReference(@Param("name") String name);
 }
@@ -1,14 +1,19 @@
 package ru.hits.car_school_automatization.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Solution;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface SolutionRepository extends JpaRepository<Solution, UUID> {
@@ -22,6 +27,9 @@ public interface SolutionRepository extends JpaRepository<Solution, UUID> {
     // Все решения по заданию
     List<Solution> findByTaskId(UUID taskId);
 
+    // Решения набора студентов по набору заданий
+    List<Solution> findByTaskIdInAndStudentIdIn(Collection<UUID> taskIds, Collection<Long> studentIds);
+
     // Проверить, отправлял ли студент решение
     boolean existsByTaskIdAndStudentId(UUID taskId, Long studentId);
 
@@ -32,4 +40,16 @@ public interface SolutionRepository extends JpaRepository<Solution, UUID> {
     // Получить решения по заданию с сортировкой
     @Query("SELECT s FROM Solution s WHERE s.taskId = :taskId ORDER BY s.submittedAt DESC")
     List<Solution> findTaskSolutions(@Param("taskId") UUID taskId);
-}
\ No newline at end of file
+
+    // Ссылки на файлы решений, читаются потоком без загрузки сущностей
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.fileUrl FROM Solution s WHERE s.fileUrl IS NOT NULL")
+    Stream<String> streamFileUrls();
+
+    // Ссылается ли решение на файл с таким именем; проверка перед удалением файла без ссылок
+    @Query("SELECT COUNT(s) > 0 FROM Solution s WHERE s.fileUrl LIKE CONCAT('%/file/', :name)")
+    boolean existsFileReference(@Param("name") String name);
+}
@@ -1,16 +1,40 @@
 package ru.hits.car_school_automatization.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Task;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, UUID> {
     List<Task> findByChannel_Id(UUID channelId);
 
     List<Task> findByVotingDeadlineBefore(Instant now);
+
+    // Задания, у всех команд которых дедлайн уже прошел, а снимки оценок еще не создавались
+    @Query("SELECT t FROM Task t WHERE EXISTS (SELECT tm FROM Team tm WHERE tm.task = t) " +
+            "AND NOT EXISTS (SELECT tm FROM Team tm WHERE tm.task = t AND (tm.deadline IS NULL OR tm.deadline > :now)) " +
+            "AND NOT EXISTS (SELECT g FROM GradeSnapshotTarget g WHERE g.targetId = t.id)")
+    List<Task> findUnsnapshottedWithAllTeamDeadlinesBefore(@Param("now") Instant now);
+
+    // Ссылки на документы заданий, читаются потоком без загрузки сущностей
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.fileUrl FROM Task t JOIN t.documents d WHERE d.fileUrl IS NOT NULL")
+    Stream<String> streamFileUrls();
+
+    // Ссылается ли документ задания на файл с таким именем; проверка перед удалением файла без ссылок
+    @Query("SELECT COUNT(d) > 0 FROM Task t JOIN t.documents d WHERE d.fileUrl LIKE CONCAT('%/file/', :name)")
+    boolean existsFileReference(@Param("name") String name);
 }
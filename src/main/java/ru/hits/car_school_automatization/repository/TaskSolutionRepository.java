@@ -1,15 +1,20 @@
 package ru.hits.car_school_automatization.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.TaskSolution;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskSolutionRepository extends JpaRepository<TaskSolution, UUID> {
@@ -31,9 +36,25 @@ public interface TaskSolutionRepository extends JpaRepository<TaskSolution, UUID
 
     List<TaskSolution> findByTaskId(UUID taskId);
 
+    List<TaskSolution> findByTaskIdIn(Collection<UUID> taskIds);
+
+    List<TaskSolution> findByTeamIdIn(Collection<UUID> teamIds);
+
     @Modifying
     @Query("UPDATE TaskSolution ts SET ts.isSelected = false WHERE ts.taskId = :taskId")
     void unselectAllByTaskId(@Param("taskId") UUID taskId);
 
     Optional<TaskSolution> findByTaskIdAndIsSelectedTrue(@Param("taskId") UUID taskId);
+
+    // Ссылки на документы командных решений, читаются потоком без загрузки сущностей
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.fileUrl FROM TaskSolution ts JOIN ts.documents d WHERE d.fileUrl IS NOT NULL")
+    Stream<String> streamFileUrls();
+
+    // Ссылается ли документ командного решения на файл с таким именем; проверка перед удалением файла без ссылок
+    @Query("SELECT COUNT(d) > 0 FROM TaskSolution ts JOIN ts.documents d WHERE d.fileUrl LIKE CONCAT('%/file/', :name)")
+    boolean existsFileReference(@Param("name") String name);
 }
@@ -1,9 +1,12 @@
 package ru.hits.car_school_automatization.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.Team;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,4 +24,13 @@ public interface TeamRepository extends JpaRepository<Team, UUID> {
     Optional<Team> findByTask_IdAndUsers_Id(UUID taskId, Long userId);
 
     List<Team> findByUsers_Id(Long userId);
+
+    @Query("SELECT DISTINCT t FROM Team t LEFT JOIN FETCH t.users WHERE t.task.id IN :taskIds")
+    List<Team> findWithUsersByTaskIdIn(@Param("taskIds") Collection<UUID> taskIds);
+
+    // Команды, в которых состоит хотя бы один из userIds, с полным составом
+    @Query("SELECT DISTINCT t FROM Team t LEFT JOIN FETCH t.users WHERE t.id IN " +
+            "(SELECT m.id FROM Team m JOIN m.users u WHERE m.task.id IN :taskIds AND u.id IN :userIds)")
+    List<Team> findWithUsersByTaskIdInAndUserIdIn(@Param("taskIds") Collection<UUID> taskIds,
+                                                  @Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,21 @@
+package ru.hits.car_school_automatization.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.hits.car_school_automatization.entity.TokenRevocation;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    List<TokenRevocation> findByRevokedAtAfter(Instant since);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.revokedAt < :before")
+    int deleteByRevokedAtBefore(@Param("before") Instant before);
+}
@@ -5,7 +5,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,12 +30,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param role  фильтрация по роли
      * @return список найденных пользователей
      */
+    default List<User> findByFilters(String name, String email, String role) {
+        if (role == null) {
+            return findByFiltersAndRoleMasks(name, email, true, List.of(0));
+        }
+        // Неизвестная роль ни у кого не встречается
+        return Arrays.stream(Role.values())
+                .filter(value -> value.name().equals(role))
+                .findFirst()
+                .map(value -> findByFiltersAndRoleMasks(name, email, false, Role.masksWith(value)))
+                .orElse(List.of());
+    }
+
+    /**
+     * Поиск пользователей по фильтрам; роль задается списком масок, содержащих ее бит,
+     * чтобы условие role_mask IN (...) использовало индекс idx_users_role_mask
+     */
     @Query(value = "SELECT * FROM users WHERE " +
             "(:name IS NULL OR LOWER(first_name) LIKE LOWER(CONCAT('%', :name, '%')) " +
             "OR LOWER(last_name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
             "AND (:email IS NULL OR LOWER(email) LIKE LOWER(CONCAT('%', :email, '%'))) " +
-            "AND (:role IS NULL OR :role = ANY(role))", nativeQuery = true)
-    List<User> findByFilters(@Param("name") String name,
-                             @Param("email") String email,
-                             @Param("role") String role);
+            "AND (:anyRole = TRUE OR role_mask IN (:roleMasks))", nativeQuery = true)
+    List<User> findByFiltersAndRoleMasks(@Param("name") String name,
+                                         @Param("email") String email,
+                                         @Param("anyRole") boolean anyRole,
+                                         @Param("roleMasks") Collection<Integer> roleMasks);
 }
@@ -0,0 +1,49 @@
+package ru.hits.car_school_automatization.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hits.car_school_automatization.service.FileStorageService;
+
+/**
+ * Фоновый перенос файлов из плоского каталога загрузок в шардированную раскладку.
+ * Идет порциями без остановки приложения; после первого пустого прохода больше не запускается.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileLayoutMigrationScheduler {
+
+    private final FileStorageService fileStorageService;
+
+    @Value("${file.layout-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.layout-migration.batch-size:1000}")
+    private int batchSize;
+
+    private volatile boolean finished;
+    private long totalMoved;
+
+    @Scheduled(fixedDelayString = "${file.layout-migration.interval-ms:10000}",
+            initialDelayString = "${file.layout-migration.interval-ms:10000}")
+    public void migrate() {
+        if (!enabled || finished) {
+            return;
+        }
+        try {
+            int moved = fileStorageService.migrateFlatFiles(batchSize);
+            totalMoved += moved;
+            if (moved == 0) {
+                finished = true;
+                log.info("Перенос файлов в шардированную раскладку завершен, перенесено {}", totalMoved);
+            } else {
+                log.info("Перенесено в шардированную раскладку {} файлов, всего {}", moved, totalMoved);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при переносе файлов в шардированную раскладку", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.hits.car_school_automatization.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hits.car_school_automatization.service.GradeSnapshotService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GradeSnapshotScheduler {
+
+    private final GradeSnapshotService gradeSnapshotService;
+
+    @Scheduled(fixedDelayString = "${grades.snapshots.refresh-interval-ms:60000}",
+            initialDelayString = "${grades.snapshots.refresh-interval-ms:60000}")
+    public void refreshGradeSnapshots() {
+        try {
+            gradeSnapshotService.refresh();
+        } catch (Exception e) {
+            log.error("Ошибка при обновлении снимков оценок", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.hits.car_school_automatization.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.hits.car_school_automatization.service.OrphanFileCollector;
+import ru.hits.car_school_automatization.util.RequestId;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrphanFileScheduler {
+
+    private final OrphanFileCollector orphanFileCollector;
+
+    @Scheduled(fixedDelayString = "${file.gc.interval-ms:3600000}",
+            initialDelayString = "${file.gc.initial-delay-ms:300000}")
+    public void collectOrphanFiles() {
+        RequestId.start("file-gc-" + UUID.randomUUID());
+        try {
+            orphanFileCollector.collect();
+        } catch (Exception e) {
+            log.error("Ошибка при сборке файлов без ссылок", e);
+        } finally {
+            RequestId.clear();
+        }
+    }
+}
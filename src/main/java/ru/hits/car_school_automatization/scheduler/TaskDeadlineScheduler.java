@@ -1,5 +1,7 @@
 package ru.hits.car_school_automatization.scheduler;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -10,16 +12,19 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.hits.car_school_automatization.entity.Post;
 import ru.hits.car_school_automatization.entity.Task;
 import ru.hits.car_school_automatization.entity.Team;
+import ru.hits.car_school_automatization.jfr.SchedulerPassEvent;
 import ru.hits.car_school_automatization.repository.P2PPairPersonalRepository;
 import ru.hits.car_school_automatization.repository.P2PPairTeamRepository;
 import ru.hits.car_school_automatization.repository.PostRepository;
 import ru.hits.car_school_automatization.repository.TaskRepository;
 import ru.hits.car_school_automatization.service.P2PService;
 import ru.hits.car_school_automatization.service.TaskSolutionService;
+import ru.hits.car_school_automatization.util.RequestId;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 @Slf4j
 @Component
@@ -33,47 +38,75 @@ public class TaskDeadlineScheduler {
     private final P2PService p2pService;
     private final P2PPairPersonalRepository p2PPairPersonalRepository;
     private final P2PPairTeamRepository p2PPairTeamRepository;
+    private final MeterRegistry meterRegistry;
 
     @Scheduled(cron = "0 * * * * *")
     @Transactional
+    @Timed("scheduler.deadlines")
     public void autoSelectSolutionsAfterDeadline() {
-        // Обработка просроченных дедлайнов P2P проверок
+        RequestId.start("scheduler-" + UUID.randomUUID());
+        SchedulerPassEvent event = new SchedulerPassEvent();
+        event.begin();
+        int p2pPairsExpired = 0;
+        int teamsProcessed = 0;
+        int errors = 0;
+        List<Task> tasks = List.of();
+        List<Post> posts = List.of();
         try {
-            p2pService.processExpiredP2PPairs();
-        } catch (Exception e) {
-            log.error("Ошибка при обработке просроченных P2P проверок", e);
-        }
+            // Обработка просроченных дедлайнов P2P проверок
+            try {
+                p2pPairsExpired = p2pService.processExpiredP2PPairs();
+            } catch (Exception e) {
+                log.error("Ошибка при обработке просроченных P2P проверок", e);
+                errors++;
+                countError("p2p-expired");
+            }
 
-        List<Task> tasks = taskRepository.findByVotingDeadlineBefore(Instant.now());
+            tasks = taskRepository.findByVotingDeadlineBefore(Instant.now());
 
-        for (Task task : tasks) {
-            for (Team team : task.getTeams()) {
-                try {
-                    taskSolutionService.autoSelectSolutionForTeam(task.getId(), team.getId());
-                } catch (Exception e) {
-                    log.error("Ошибка при автоматическом выборе решения для задания {} и команды {}",
-                            task.getId(), team.getId(), e);
+            for (Task task : tasks) {
+                for (Team team : task.getTeams()) {
+                    teamsProcessed++;
+                    try {
+                        taskSolutionService.autoSelectSolutionForTeam(task.getId(), team.getId());
+                    } catch (Exception e) {
+                        log.error("Ошибка при автоматическом выборе решения для задания {} и команды {}",
+                                task.getId(), team.getId(), e);
+                        errors++;
+                        countError("team-solution");
+                    }
                 }
-            }
 
-            if (Boolean.TRUE.equals(task.getIsP2pEnabled()) && p2PPairTeamRepository.findByTaskId(task.getId()).isEmpty()) {
-                try {
-                    p2pService.generateP2PForTask(task.getId());
-                } catch (Exception e) {
-                    log.error("Ошибка при генерации P2P для задания {}", task.getId(), e);
+                if (Boolean.TRUE.equals(task.getIsP2pEnabled()) && p2PPairTeamRepository.findByTaskId(task.getId()).isEmpty()) {
+                    try {
+                        p2pService.generateP2PForTask(task.getId());
+                    } catch (Exception e) {
+                        log.error("Ошибка при генерации P2P для задания {}", task.getId(), e);
+                        errors++;
+                        countError("task-p2p");
+                    }
                 }
             }
-        }
 
-        List<Post> posts = postRepository.findByDeadlineBefore(LocalDateTime.now());
-        for (Post post : posts) {
-            if (Boolean.TRUE.equals(post.getIsP2pEnabled()) && p2PPairPersonalRepository.findByPostId(post.getId()).isEmpty()) {
-                try {
-                    p2pService.generateP2PForPost(post.getId());
-                } catch (Exception e) {
-                    log.error("Ошибка при генерации P2P для поста {}", post.getId(), e);
+            posts = postRepository.findByDeadlineBefore(LocalDateTime.now());
+            for (Post post : posts) {
+                if (Boolean.TRUE.equals(post.getIsP2pEnabled()) && p2PPairPersonalRepository.findByPostId(post.getId()).isEmpty()) {
+                    try {
+                        p2pService.generateP2PForPost(post.getId());
+                    } catch (Exception e) {
+                        log.error("Ошибка при генерации P2P для поста {}", post.getId(), e);
+                        errors++;
+                        countError("post-p2p");
+                    }
                 }
             }
+        } finally {
+            event.commit(tasks.size(), teamsProcessed, posts.size(), p2pPairsExpired, errors);
+            RequestId.clear();
         }
     }
-}
\ No newline at end of file
+
+    private void countError(String step) {
+        meterRegistry.counter("scheduler.deadlines.errors", "step", step).increment();
+    }
+}
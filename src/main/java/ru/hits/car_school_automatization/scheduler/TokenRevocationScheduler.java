@@ -0,0 +1,34 @@
+package ru.hits.car_school_automatization.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hits.car_school_automatization.service.TokenRevocationRegistry;
+
+/**
+ * Синхронизация отзыва токенов между узлами: первый проход сразу после старта
+ * восстанавливает отзывы, сделанные до перезапуска
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationScheduler {
+
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:30000}")
+    @Transactional
+    public void refreshRevocations() {
+        try {
+            int purged = tokenRevocationRegistry.purgeExpired();
+            tokenRevocationRegistry.refresh();
+            if (purged > 0) {
+                log.info("Удалено {} истекших записей об отзыве токенов", purged);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при обновлении отозванных токенов", e);
+        }
+    }
+}
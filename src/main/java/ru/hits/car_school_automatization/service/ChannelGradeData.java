@@ -0,0 +1,518 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import ru.hits.car_school_automatization.dto.GradeTableCellDto;
+import ru.hits.car_school_automatization.dto.GradeTableRowDto;
+import ru.hits.car_school_automatization.dto.GradeTableTargetDto;
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.GradeTargetType;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.util.GradeCalculator;
+import ru.hits.car_school_automatization.util.GradeMatrix;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Снимок всех данных предмета, нужных для расчета оценок, с расчетом в памяти.
+ * Собирается {@link ChannelGradeLoader} фиксированным числом запросов и
+ * дает те же значения, что и поштучные методы {@link GradeService}.
+ */
+@Getter
+public class ChannelGradeData {
+
+    private final UUID channelId;
+    private final List<User> students;
+    private final List<Post> taskPosts;
+    private final List<Task> tasks;
+    private final List<Control> controls;
+    private final Map<UUID, Post> controlPostsById;
+    private final Instant now;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, List<Metric>> metricsByTarget = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Metric> metricsById = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Map<Long, Double>> valuesByMetric = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Map<Long, Instant>> submissionsByPost = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Map<Long, Team>> teamsByTaskAndUser = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Instant> submissionsByTeam = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, List<Control>> controlsByTarget = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Post> taskPostsById = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Task> tasksById = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Control> controlsById = new HashMap<>();
+    /**
+     * Критерий-коэффициент каждой контрольной, выбирается один раз при сборке снимка
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Optional<Metric>> coefficientMetricByControl = new HashMap<>();
+    /**
+     * Мемоизация коэффициентов (контрольная, пользователь) на время жизни снимка
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Map<Long, Double>> coefficientByControlAndUser = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, Integer> studentIndex = new HashMap<>();
+    /**
+     * Оценки по критериям цели для всех студентов снимка (в порядке students), считаются при первом обращении
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, double[]> metricGradesByTarget = new ConcurrentHashMap<>();
+    /**
+     * Оценки из актуальных снимков по цели и пользователю; для них расчет не выполняется
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, Map<Long, Double>> snapshotGrades = new HashMap<>();
+    /**
+     * Гипотетические штрафы за дедлайн по цели (null — без штрафа), см. {@link #withOverrides}
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, DeadlinePenalty> penaltyOverrides = new HashMap<>();
+
+    @Builder
+    public ChannelGradeData(UUID channelId,
+                            List<User> students,
+                            List<Post> taskPosts,
+                            List<Task> tasks,
+                            List<Control> controls,
+                            List<Post> controlPosts,
+                            List<Metric> metrics,
+                            List<MetricValue> metricValues,
+                            List<Solution> solutions,
+                            List<Team> teams,
+                            List<TaskSolution> taskSolutions,
+                            List<GradeSnapshot> snapshots,
+                            Instant now) {
+        this.channelId = channelId;
+        this.students = students != null ? students : List.of();
+        for (int i = 0; i < this.students.size(); i++) {
+            studentIndex.putIfAbsent(this.students.get(i).getId(), i);
+        }
+        this.taskPosts = taskPosts != null ? taskPosts : List.of();
+        this.tasks = tasks != null ? tasks : List.of();
+        this.controls = controls != null ? controls : List.of();
+        this.now = now != null ? now : Instant.now();
+
+        this.controlPostsById = new HashMap<>();
+        if (controlPosts != null) {
+            controlPosts.forEach(post -> controlPostsById.putIfAbsent(post.getId(), post));
+        }
+
+        if (metrics != null) {
+            for (Metric metric : metrics) {
+                UUID targetId = metric.getPostId() != null ? metric.getPostId() : metric.getTaskId();
+                if (targetId != null) {
+                    metricsByTarget.computeIfAbsent(targetId, key -> new ArrayList<>()).add(metric);
+                }
+                metricsById.putIfAbsent(metric.getId(), metric);
+            }
+        }
+
+        if (metricValues != null) {
+            for (MetricValue value : metricValues) {
+                valuesByMetric.computeIfAbsent(value.getMetricId(), key -> new HashMap<>())
+                        .put(value.getUserId(), value.getValue());
+            }
+        }
+
+        if (solutions != null) {
+            for (Solution solution : solutions) {
+                if (solution.getSubmittedAt() == null) {
+                    continue;
+                }
+                submissionsByPost.computeIfAbsent(solution.getTaskId(), key -> new HashMap<>())
+                        .putIfAbsent(solution.getStudentId(), solution.getSubmittedAt().toInstant(ZoneOffset.UTC));
+            }
+        }
+
+        if (teams != null) {
+            for (Team team : teams) {
+                if (team.getTask() == null || team.getUsers() == null) {
+                    continue;
+                }
+                Map<Long, Team> byUser = teamsByTaskAndUser.computeIfAbsent(team.getTask().getId(), key -> new HashMap<>());
+                team.getUsers().forEach(user -> byUser.putIfAbsent(user.getId(), team));
+            }
+        }
+
+        if (taskSolutions != null) {
+            Map<UUID, Instant> selected = new HashMap<>();
+            for (TaskSolution solution : taskSolutions) {
+                if (Boolean.TRUE.equals(solution.getIsSelected())) {
+                    selected.putIfAbsent(solution.getTeamId(), solution.getCreatedAt());
+                } else if (solution.getCreatedAt() != null) {
+                    submissionsByTeam.merge(solution.getTeamId(), solution.getCreatedAt(),
+                            (a, b) -> a.isBefore(b) ? a : b);
+                }
+            }
+            submissionsByTeam.putAll(selected);
+        }
+
+        if (snapshots != null) {
+            for (GradeSnapshot snapshot : snapshots) {
+                if (!snapshot.isStale() && snapshot.getValue() != null) {
+                    snapshotGrades.computeIfAbsent(snapshot.getTargetId(), key -> new HashMap<>())
+                            .put(snapshot.getUserId(), snapshot.getValue());
+                }
+            }
+        }
+
+        this.taskPosts.forEach(post -> taskPostsById.putIfAbsent(post.getId(), post));
+        this.tasks.forEach(task -> tasksById.putIfAbsent(task.getId(), task));
+
+        for (Control control : this.controls) {
+            controlsById.putIfAbsent(control.getPostId(), control);
+            coefficientMetricByControl.put(control.getPostId(),
+                    Optional.ofNullable(GradeCalculator.resolveSingleCoefficientMetric(metricsOf(control.getPostId()))));
+            control.getPostTaskIds().forEach(postId ->
+                    controlsByTarget.computeIfAbsent(postId, key -> new ArrayList<>()).add(control));
+            control.getTaskIds().forEach(taskId ->
+                    controlsByTarget.computeIfAbsent(taskId, key -> new ArrayList<>()).add(control));
+        }
+    }
+
+    private ChannelGradeData(ChannelGradeData base, Long userId, Map<UUID, Double> metricValues,
+                             Map<UUID, DeadlinePenalty> penalties) {
+        this.channelId = base.channelId;
+        this.students = base.students;
+        this.taskPosts = base.taskPosts;
+        this.tasks = base.tasks;
+        this.controls = base.controls;
+        this.controlPostsById = base.controlPostsById;
+        this.now = base.now;
+
+        metricsByTarget.putAll(base.metricsByTarget);
+        metricsById.putAll(base.metricsById);
+        valuesByMetric.putAll(base.valuesByMetric);
+        metricValues.forEach((metricId, value) -> {
+            Map<Long, Double> byUser = new HashMap<>(base.valuesByMetric.getOrDefault(metricId, Map.of()));
+            byUser.put(userId, value);
+            valuesByMetric.put(metricId, byUser);
+        });
+        // Оценки пользователя с гипотетическими значениями пересчитываются, снимки остаются только у остальных
+        base.snapshotGrades.forEach((targetId, byUser) -> {
+            Map<Long, Double> others = new HashMap<>(byUser);
+            others.remove(userId);
+            snapshotGrades.put(targetId, others);
+        });
+        submissionsByPost.putAll(base.submissionsByPost);
+        teamsByTaskAndUser.putAll(base.teamsByTaskAndUser);
+        submissionsByTeam.putAll(base.submissionsByTeam);
+        controlsByTarget.putAll(base.controlsByTarget);
+        taskPostsById.putAll(base.taskPostsById);
+        tasksById.putAll(base.tasksById);
+        controlsById.putAll(base.controlsById);
+        coefficientMetricByControl.putAll(base.coefficientMetricByControl);
+        studentIndex.putAll(base.studentIndex);
+        penaltyOverrides.putAll(base.penaltyOverrides);
+        penaltyOverrides.putAll(penalties);
+    }
+
+    /**
+     * Копия снимка с гипотетическими значениями критериев пользователя и штрафами за дедлайн.
+     * Исходный снимок и сущности не меняются, мемоизированные расчеты в копии начинаются заново.
+     *
+     * @param metricValues значения по id критерия; null — значение отсутствует (берется minValue)
+     * @param penalties    штрафы по id поста или задания; null — без штрафа
+     */
+    public ChannelGradeData withOverrides(Long userId, Map<UUID, Double> metricValues,
+                                          Map<UUID, DeadlinePenalty> penalties) {
+        return new ChannelGradeData(this, userId, metricValues, penalties);
+    }
+
+    public Optional<Metric> findMetric(UUID metricId) {
+        return Optional.ofNullable(metricsById.get(metricId));
+    }
+
+    /**
+     * Пост-задание или командное задание, оценка за которое входит в снимок
+     */
+    public boolean isGradedTarget(UUID targetId) {
+        return taskPostsById.containsKey(targetId) || tasksById.containsKey(targetId);
+    }
+
+    /**
+     * Оценка пользователя за пост (TASK или CONTROL) со штрафом за дедлайн, без коэффициентов контрольных.
+     * За завершенное задание берется из актуального снимка.
+     */
+    public double postGrade(Post post, Long userId) {
+        Double snapshot = snapshotOf(post.getId(), userId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        double mark;
+        if (post.getType() == PostType.CONTROL) {
+            mark = GradeCalculator.calculateControlValue(metricsOf(post.getId()), valuesOf(post.getId(), userId));
+        } else {
+            mark = metricGrade(post.getId(), userId);
+        }
+        return GradeCalculator.applyDeadlinePenalty(mark, penaltyOf(post.getId(), post.getDeadlinePenalty()),
+                post.getDeadline() != null ? post.getDeadline().toInstant(ZoneOffset.UTC) : null,
+                submissionsByPost.getOrDefault(post.getId(), Map.of()).get(userId),
+                now);
+    }
+
+    /**
+     * Оценка пользователя за командное задание со штрафом за дедлайн команды, без коэффициентов контрольных.
+     * За завершенное задание берется из актуального снимка.
+     */
+    public double taskGrade(Task task, Long userId) {
+        Double snapshot = snapshotOf(task.getId(), userId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Team team = teamsByTaskAndUser.getOrDefault(task.getId(), Map.of()).get(userId);
+        if (team == null) {
+            return 0.0;
+        }
+
+        double mark = metricGrade(task.getId(), userId);
+        return GradeCalculator.applyDeadlinePenalty(mark, penaltyOf(task.getId(), task.getDeadlinePenalty()),
+                team.getDeadline(),
+                submissionsByTeam.get(team.getId()),
+                now);
+    }
+
+    /**
+     * Оценка за пост больше не зависит от времени (см. {@link GradeCalculator#isPenaltySettled})
+     */
+    public boolean isPostGradeSettled(Post post, Long userId, double grade) {
+        return GradeCalculator.isPenaltySettled(grade, penaltyOf(post.getId(), post.getDeadlinePenalty()),
+                post.getDeadline() != null ? post.getDeadline().toInstant(ZoneOffset.UTC) : null,
+                submissionsByPost.getOrDefault(post.getId(), Map.of()).get(userId));
+    }
+
+    /**
+     * Оценка за командное задание больше не зависит от времени (см. {@link GradeCalculator#isPenaltySettled})
+     */
+    public boolean isTaskGradeSettled(Task task, Long userId, double grade) {
+        Team team = teamsByTaskAndUser.getOrDefault(task.getId(), Map.of()).get(userId);
+        if (team == null) {
+            return true;
+        }
+        return GradeCalculator.isPenaltySettled(grade, penaltyOf(task.getId(), task.getDeadlinePenalty()), team.getDeadline(),
+                submissionsByTeam.get(team.getId()));
+    }
+
+    public double controlCoefficient(Control control, Long userId) {
+        return coefficientByControlAndUser
+                .computeIfAbsent(control.getPostId(), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(userId, key -> calculateControlCoefficient(control.getPostId(), userId));
+    }
+
+    private double calculateControlCoefficient(UUID controlId, Long userId) {
+        Optional<Metric> indexed = coefficientMetricByControl.get(controlId);
+        Metric metric = indexed != null
+                ? indexed.orElse(null)
+                : GradeCalculator.resolveSingleCoefficientMetric(metricsOf(controlId));
+        if (metric == null) {
+            return 1.0;
+        }
+        return GradeCalculator.valueOrMin(metric, valuesByMetric.getOrDefault(metric.getId(), Map.of()).get(userId));
+    }
+
+    /**
+     * Применяет коэффициенты всех контрольных, в которые входит пост или задание
+     */
+    public double applyControlCoefficients(double mark, UUID targetId, Long userId) {
+        double result = mark;
+        for (Control control : controlsByTarget.getOrDefault(targetId, List.of())) {
+            result *= controlCoefficient(control, userId);
+        }
+        return result;
+    }
+
+    /**
+     * Оценка за предмет: среднее по заданиям-постам и командным заданиям с учетом контрольных
+     */
+    public double channelGrade(Long userId) {
+        double sum = 0.0;
+        int count = 0;
+
+        for (Post post : taskPosts) {
+            sum += applyControlCoefficients(postGrade(post, userId), post.getId(), userId);
+            count += 1;
+        }
+
+        for (Task task : tasks) {
+            sum += applyControlCoefficients(taskGrade(task, userId), task.getId(), userId);
+            count += 1;
+        }
+
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /**
+     * Столбцы таблицы оценок: задания-посты, командные задания и контрольные в порядке создания
+     */
+    public List<GradeTableTargetDto> tableTargets() {
+        List<TargetWithTime> targetEntries = new ArrayList<>();
+        for (Post post : taskPosts) {
+            Instant createdAt = post.getCreatedAt() != null
+                    ? post.getCreatedAt().toInstant(ZoneOffset.UTC)
+                    : Instant.EPOCH;
+            targetEntries.add(new TargetWithTime(
+                    GradeTableTargetDto.builder()
+                            .targetId(post.getId())
+                            .label(post.getLabel())
+                            .type(GradeTargetType.POST_TASK)
+                            .build(),
+                    createdAt
+            ));
+        }
+
+        for (Task task : tasks) {
+            Instant startAt = task.getStartAt() != null ? task.getStartAt() : Instant.EPOCH;
+            targetEntries.add(new TargetWithTime(
+                    GradeTableTargetDto.builder()
+                            .targetId(task.getId())
+                            .label(task.getLabel())
+                            .type(GradeTargetType.TASK)
+                            .build(),
+                    startAt
+            ));
+        }
+
+        for (Control control : controls) {
+            Post controlPost = controlPostsById.get(control.getPostId());
+            String label = controlPost != null ? controlPost.getLabel() : null;
+            Instant createdAt = controlPost != null && controlPost.getCreatedAt() != null
+                    ? controlPost.getCreatedAt().toInstant(ZoneOffset.UTC)
+                    : Instant.EPOCH;
+            targetEntries.add(new TargetWithTime(
+                    GradeTableTargetDto.builder()
+                            .targetId(control.getPostId())
+                            .label(label)
+                            .type(GradeTargetType.CONTROL)
+                            .build(),
+                    createdAt
+            ));
+        }
+
+        return targetEntries.stream()
+                .sorted(Comparator.comparing(TargetWithTime::sortKey))
+                .map(TargetWithTime::target)
+                .toList();
+    }
+
+    /**
+     * Строка таблицы оценок студента по столбцам targets
+     */
+    public GradeTableRowDto tableRow(User student, List<GradeTableTargetDto> targets) {
+        List<GradeTableCellDto> grades = new ArrayList<>();
+        double sum = 0.0;
+        int count = 0;
+        for (GradeTableTargetDto target : targets) {
+            // targets могут быть получены из другого снимка (выгрузка порциями), поэтому цель может отсутствовать
+            Double rawValue = null;
+            if (target.getType() == GradeTargetType.POST_TASK) {
+                Post post = taskPostsById.get(target.getTargetId());
+                if (post != null) {
+                    rawValue = postGrade(post, student.getId());
+                    sum += applyControlCoefficients(rawValue, target.getTargetId(), student.getId());
+                    count += 1;
+                }
+            } else if (target.getType() == GradeTargetType.TASK) {
+                Task task = tasksById.get(target.getTargetId());
+                if (task != null) {
+                    rawValue = taskGrade(task, student.getId());
+                    sum += applyControlCoefficients(rawValue, target.getTargetId(), student.getId());
+                    count += 1;
+                }
+            } else {
+                Control control = controlsById.get(target.getTargetId());
+                rawValue = control != null ? controlCoefficient(control, student.getId()) : null;
+            }
+
+            grades.add(GradeTableCellDto.builder()
+                    .targetId(target.getTargetId())
+                    .rawValue(rawValue)
+                    .controlIds(controlIdsOf(target.getTargetId()))
+                    .build());
+        }
+
+        return GradeTableRowDto.builder()
+                .userId(student.getId())
+                .userName(student.getFirstName() + " " + student.getLastName())
+                .channelGrade(count == 0 ? 0.0 : sum / count)
+                .grades(grades)
+                .build();
+    }
+
+    public List<UUID> controlIdsOf(UUID targetId) {
+        return controlsByTarget.getOrDefault(targetId, List.of()).stream()
+                .map(Control::getPostId)
+                .toList();
+    }
+
+    private double metricGrade(UUID targetId, Long userId) {
+        Integer index = studentIndex.get(userId);
+        if (index == null) {
+            return GradeCalculator.calculateMetrics(metricsOf(targetId), valuesOf(targetId, userId));
+        }
+        return metricGradesByTarget.computeIfAbsent(targetId, this::calculateTargetGrades)[index];
+    }
+
+    private double[] calculateTargetGrades(UUID targetId) {
+        List<Metric> metrics = metricsOf(targetId);
+        int metricCount = metrics.size();
+        double[] values = new double[students.size() * metricCount];
+        Arrays.fill(values, Double.NaN);
+
+        for (int m = 0; m < metricCount; m++) {
+            Map<Long, Double> byUser = valuesByMetric.get(metrics.get(m).getId());
+            if (byUser == null) {
+                continue;
+            }
+            for (int s = 0; s < students.size(); s++) {
+                Double value = byUser.get(students.get(s).getId());
+                if (value != null) {
+                    values[s * metricCount + m] = value;
+                }
+            }
+        }
+
+        double[] grades = new double[students.size()];
+        GradeMatrix.of(metrics).compute(values, students.size(), grades);
+        return grades;
+    }
+
+    private Double snapshotOf(UUID targetId, Long userId) {
+        Map<Long, Double> byUser = snapshotGrades.get(targetId);
+        return byUser != null ? byUser.get(userId) : null;
+    }
+
+    private DeadlinePenalty penaltyOf(UUID targetId, DeadlinePenalty penalty) {
+        return penaltyOverrides.containsKey(targetId) ? penaltyOverrides.get(targetId) : penalty;
+    }
+
+    private List<Metric> metricsOf(UUID targetId) {
+        return metricsByTarget.getOrDefault(targetId, List.of());
+    }
+
+    private Map<UUID, Double> valuesOf(UUID targetId, Long userId) {
+        Map<UUID, Double> values = new HashMap<>();
+        for (Metric metric : metricsOf(targetId)) {
+            Double value = valuesByMetric.getOrDefault(metric.getId(), Map.of()).get(userId);
+            if (value != null) {
+                values.put(metric.getId(), value);
+            }
+        }
+        return values;
+    }
+
+    private record TargetWithTime(GradeTableTargetDto target, Instant sortKey) {
+    }
+}
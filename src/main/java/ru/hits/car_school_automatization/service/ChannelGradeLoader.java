@@ -0,0 +1,157 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.repository.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Загружает данные для расчета оценок по предмету пакетно: число запросов
+ * не зависит ни от количества студентов, ни от количества заданий.
+ * Вместе с данными загружаются актуальные снимки оценок за завершенные задания
+ * (см. {@link GradeSnapshotService}), по которым оценка не пересчитывается.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChannelGradeLoader {
+
+    /**
+     * Общая для всех студентов часть данных предмета: задания, контрольные и их критерии.
+     * При обработке предмета порциями загружается один раз.
+     */
+    public record Targets(List<Post> taskPosts, List<Task> tasks, List<Control> controls,
+                          List<Post> controlPosts, List<Metric> metrics) {
+    }
+
+    private final ChannelRepository channelRepository;
+    private final PostRepository postRepository;
+    private final TaskRepository taskRepository;
+    private final ControlRepository controlRepository;
+    private final MetricRepository metricRepository;
+    private final MetricValueRepository metricValueRepository;
+    private final SolutionRepository solutionRepository;
+    private final TeamRepository teamRepository;
+    private final TaskSolutionRepository taskSolutionRepository;
+    private final GradeSnapshotRepository gradeSnapshotRepository;
+
+    @Value("${grades.snapshots.enabled:true}")
+    private boolean snapshotsEnabled;
+
+    /**
+     * @param userId если задан, загружаются только данные этого пользователя
+     */
+    @Transactional(readOnly = true)
+    public ChannelGradeData load(UUID channelId, Long userId) {
+        List<User> students = loadStudents(channelId).stream()
+                .filter(u -> userId == null || u.getId().equals(userId))
+                .toList();
+        return load(channelId, students);
+    }
+
+    /**
+     * Студенты предмета
+     */
+    @Transactional(readOnly = true)
+    public List<User> loadStudents(UUID channelId) {
+        Channel channel = channelRepository.findById(channelId)
+                .orElseThrow(() -> new NotFoundException("Предмет не найден"));
+
+        return channel.getUsers().stream()
+                .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
+                .toList();
+    }
+
+    /**
+     * Id студентов предмета по возрастанию, без загрузки самих пользователей
+     */
+    @Transactional(readOnly = true)
+    public List<Long> loadStudentIds(UUID channelId) {
+        if (!channelRepository.existsById(channelId)) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        return channelRepository.findUserIdsByChannelIdAndRoleMaskIn(channelId, Role.masksWith(Role.STUDENT));
+    }
+
+    /**
+     * Загружает данные предмета только для переданных студентов, что позволяет обрабатывать
+     * большие предметы порциями
+     */
+    @Transactional(readOnly = true)
+    public ChannelGradeData load(UUID channelId, List<User> students) {
+        return load(channelId, loadTargets(channelId), students);
+    }
+
+    @Transactional(readOnly = true)
+    public Targets loadTargets(UUID channelId) {
+        List<Post> taskPosts = postRepository.findByChannelIdAndType(channelId, PostType.TASK);
+        List<Task> tasks = taskRepository.findByChannel_Id(channelId);
+        List<Control> controls = controlRepository.findWithTargetsByChannelId(channelId);
+
+        List<UUID> controlPostIds = controls.stream().map(Control::getPostId).toList();
+        List<UUID> taskIds = tasks.stream().map(Task::getId).toList();
+
+        List<UUID> postIds = new ArrayList<>(taskPosts.stream().map(Post::getId).toList());
+        postIds.addAll(controlPostIds);
+
+        List<Metric> metrics = new ArrayList<>();
+        if (!postIds.isEmpty()) {
+            metrics.addAll(metricRepository.findByPostIdIn(postIds));
+        }
+        if (!taskIds.isEmpty()) {
+            metrics.addAll(metricRepository.findByTaskIdIn(taskIds));
+        }
+
+        return new Targets(taskPosts, tasks, controls,
+                controlPostIds.isEmpty() ? List.of() : postRepository.findAllById(controlPostIds), metrics);
+    }
+
+    /**
+     * Данные переданных студентов поверх уже загруженной общей части предмета.
+     * Команды загружаются только те, в которых состоят эти студенты, и решения — только этих команд.
+     */
+    @Transactional(readOnly = true)
+    public ChannelGradeData load(UUID channelId, Targets targets, List<User> students) {
+        List<UUID> taskPostIds = targets.taskPosts().stream().map(Post::getId).toList();
+        List<UUID> taskIds = targets.tasks().stream().map(Task::getId).toList();
+        List<UUID> metricIds = targets.metrics().stream().map(Metric::getId).toList();
+        List<Long> studentIds = students.stream().map(User::getId).toList();
+        boolean noStudents = studentIds.isEmpty();
+
+        List<Team> teams = taskIds.isEmpty() || noStudents
+                ? List.of()
+                : teamRepository.findWithUsersByTaskIdInAndUserIdIn(taskIds, studentIds);
+        List<UUID> teamIds = teams.stream().map(Team::getId).toList();
+
+        return ChannelGradeData.builder()
+                .channelId(channelId)
+                .students(students)
+                .taskPosts(targets.taskPosts())
+                .tasks(targets.tasks())
+                .controls(targets.controls())
+                .controlPosts(targets.controlPosts())
+                .metrics(targets.metrics())
+                .metricValues(metricIds.isEmpty() || noStudents
+                        ? List.of()
+                        : metricValueRepository.findByMetricIdInAndUserIdIn(metricIds, studentIds))
+                .solutions(taskPostIds.isEmpty() || noStudents
+                        ? List.of()
+                        : solutionRepository.findByTaskIdInAndStudentIdIn(taskPostIds, studentIds))
+                .teams(teams)
+                .taskSolutions(teamIds.isEmpty() ? List.of() : taskSolutionRepository.findByTeamIdIn(teamIds))
+                .snapshots(!snapshotsEnabled || noStudents || (taskPostIds.isEmpty() && taskIds.isEmpty())
+                        ? List.of()
+                        : gradeSnapshotRepository.findFreshByChannelIdAndUserIdIn(channelId, studentIds))
+                .now(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.hits.car_school_automatization.entity.Channel;
+import ru.hits.car_school_automatization.repository.ChannelRepository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Проверка членства пользователя в предмете по компактному множеству id его предметов.
+ * <p>
+ * Множество загружается одним запросом только id (без сущностей Channel и состава предмета)
+ * и кэшируется на время запроса и между запросами (LRU с TTL). Изменение состава предмета
+ * и удаление предмета сбрасывают затронутые записи сразу и повторно — после коммита транзакции.
+ */
+@Slf4j
+@Service
+public class ChannelMembershipService {
+
+    private static final String REQUEST_ATTRIBUTE = ChannelMembershipService.class.getName() + ".channelIds";
+
+    public record Stats(long size, long hits, long misses) {
+    }
+
+    private record Entry(Set<UUID> channelIds, long expiresAt) {
+    }
+
+    private final ChannelRepository channelRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Увеличивается при каждом сбросе; множество, загруженное до сброса, в кэш не попадает
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public ChannelMembershipService(ChannelRepository channelRepository,
+                                    @Value("${channels.membership-cache.max-size:10000}") int maxSize,
+                                    @Value("${channels.membership-cache.ttl:5m}") Duration ttl) {
+        this.channelRepository = channelRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ChannelMembershipService.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isMember(UUID channelId, Long userId) {
+        return channelId != null && userId != null && channelIdsOf(userId).contains(channelId);
+    }
+
+    /**
+     * Членство в уже загруженном предмете: если состав предмета уже в памяти, он просматривается,
+     * иначе проверка идет по множеству id без загрузки состава
+     */
+    public boolean isMember(Channel channel, Long userId) {
+        if (Hibernate.isInitialized(channel.getUsers())) {
+            return channel.getUsers().stream().anyMatch(user -> user.getId().equals(userId));
+        }
+        return isMember(channel.getId(), userId);
+    }
+
+    /**
+     * Id предметов, в которых состоит пользователь
+     */
+    public Set<UUID> channelIdsOf(Long userId) {
+        Map<Long, Set<UUID>> requestScoped = requestScoped();
+        if (requestScoped != null) {
+            Set<UUID> channelIds = requestScoped.get(userId);
+            if (channelIds == null) {
+                channelIds = load(userId);
+                requestScoped.put(userId, channelIds);
+            }
+            return channelIds;
+        }
+        return load(userId);
+    }
+
+    /**
+     * Изменился состав предметов пользователя
+     */
+    public void invalidate(Long userId) {
+        invalidate(() -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Предмет удален: сбрасываются все пользователи, в множестве которых он был
+     */
+    public void invalidateChannel(UUID channelId) {
+        invalidate(() -> {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.values().removeIf(entry -> entry.channelIds().contains(channelId));
+            }
+        });
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.get(), misses.get());
+        }
+    }
+
+    private Set<UUID> load(Long userId) {
+        if (maxSize <= 0) {
+            return Set.copyOf(channelRepository.findChannelIdsByUserId(userId));
+        }
+
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                if (entry.expiresAt() - now > 0) {
+                    hits.incrementAndGet();
+                    return entry.channelIds();
+                }
+                entries.remove(userId);
+            }
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        Set<UUID> channelIds = Set.copyOf(channelRepository.findChannelIdsByUserId(userId));
+
+        synchronized (entries) {
+            if (generation.get() == startGeneration) {
+                entries.put(userId, new Entry(channelIds, System.nanoTime() + ttlNanos));
+            }
+        }
+        return channelIds;
+    }
+
+    private void invalidate(Runnable removal) {
+        removal.run();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removal.run();
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Set<UUID>> requestScoped() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object value = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (value == null) {
+            value = new HashMap<Long, Set<UUID>>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, value, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Long, Set<UUID>>) value;
+    }
+}
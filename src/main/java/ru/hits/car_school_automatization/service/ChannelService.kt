@@ -24,6 +24,8 @@ open class ChannelService(
     private val userRepository: UserRepository,
     private val fileStorageService: FileStorageService,
     private val tokenProvider: JwtTokenProvider,
+    private val channelMembershipService: ChannelMembershipService,
+    private val gradeCache: GradeCache,
 ) {
 
     open fun createChanel(createChannelDto: CreateChannelDto, image: MultipartFile?, header: String) {
@@ -41,11 +43,13 @@ open class ChannelService(
             }
         }
         channelRepository.save(createChannelDto.toEntity(creator, imagePath, users))
+        users.forEach { channelMembershipService.invalidate(it.id) }
     }
 
     open fun deleteChanel(id: UUID) {
         channelRepository.getChannelById(id) ?: throw BadRequestException("Channel with id $id does not exist")
         channelRepository.deleteById(id)
+        channelMembershipService.invalidateChannel(id)
     }
 
     fun editChannel(dto: ChannelPatchDto, channelId: UUID) {
@@ -109,5 +113,7 @@ open class ChannelService(
         val channel = channelRepository.findById(channelId).orElseThrow { BadRequestException("Channel not found") }
         channel.users.add(user)
         channelRepository.save(channel)
+        channelMembershipService.invalidate(userId)
+        gradeCache.invalidateChannelAggregates(channelId)
     }
 }
\ No newline at end of file
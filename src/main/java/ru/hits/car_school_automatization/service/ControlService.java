@@ -34,6 +34,7 @@ public class ControlService {
     private final UserRepository userRepository;
     private final ControlMapper controlMapper;
     private final JwtTokenProvider tokenProvider;
+    private final GradeCache gradeCache;
 
     public Control createControl(Post post, Set<UUID> postTaskIds, Set<UUID> taskIds) {
         if (post.getType() != PostType.CONTROL) {
@@ -54,6 +55,7 @@ public class ControlService {
                 .taskIds(validatedTasks)
                 .build();
 
+        gradeCache.invalidateChannelAggregates(post.getChannelId());
         return controlRepository.save(control);
     }
 
@@ -74,14 +76,16 @@ public class ControlService {
 
         control.setPostTaskIds(postTaskIds);
         control.setTaskIds(taskIds);
+        gradeCache.invalidateChannelAggregates(control.getChannelId());
 
         return controlMapper.toDto(controlRepository.save(control), postRepository, taskRepository);
     }
 
     public void deleteControlByPostId(UUID postId) {
-        if (controlRepository.existsById(postId)) {
-            controlRepository.deleteById(postId);
-        }
+        controlRepository.findById(postId).ifPresent(control -> {
+            controlRepository.delete(control);
+            gradeCache.invalidateChannelAggregates(control.getChannelId());
+        });
     }
 
     private Set<UUID> validatePostTaskIds(Set<UUID> postTaskIds, UUID channelId) {
@@ -1,44 +1,364 @@
 package ru.hits.car_school_automatization.service
 
+import io.micrometer.core.annotation.Timed
 import org.springframework.beans.factory.annotation.Value
+import org.springframework.dao.DataIntegrityViolationException
+import org.springframework.http.MediaType
+import org.springframework.http.MediaTypeFactory
 import org.springframework.stereotype.Service
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.transaction.support.TransactionTemplate
 import org.springframework.web.multipart.MultipartFile
+import ru.hits.car_school_automatization.entity.FileBlob
+import ru.hits.car_school_automatization.jfr.FileIoEvent
 import ru.hits.car_school_automatization.exception.BadRequestException
+import ru.hits.car_school_automatization.repository.FileBlobRepository
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.nio.channels.WritableByteChannel
+import java.nio.file.FileVisitResult
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.DigestInputStream
+import java.security.MessageDigest
+import java.time.Instant
 import java.util.*
+import java.util.function.Predicate
 
+/**
+ * Хранилище загруженных файлов.
+ *
+ * В режиме file.content-addressed файл сохраняется под SHA-256 содержимого, поэтому повторная
+ * загрузка тех же байтов не занимает места, а число ссылок хранится в [FileBlob].
+ * Файл удаляется после коммита транзакции, в которой ушла последняя ссылка, под блокировкой
+ * строки счетчика, чтобы не удалить файл, который в это же время загружают повторно.
+ *
+ * Файлы лежат в двух уровнях каталогов по префиксу имени (ab/cd/abcd...), чтобы каталоги
+ * не разрастались до сотен тысяч записей. Файлы прежней плоской раскладки находятся по тому же
+ * имени, пока [migrateFlatFiles] не перенесет их, поэтому старые ссылки продолжают работать.
+ */
 @Service
 class FileStorageService(
     @param:Value("\${file.path}") private val path: String,
+    @param:Value("\${file.content-addressed:false}") private val contentAddressed: Boolean,
+    private val fileBlobRepository: FileBlobRepository,
+    transactionManager: PlatformTransactionManager,
 ) {
+    /**
+     * Метаданные файла для условных и частичных запросов
+     *
+     * @param etag сильный ETag в кавычках: SHA-256 из имени файла при хранении по содержимому,
+     * иначе размер и время изменения — файлы с именем UUID после загрузки не меняются
+     */
+    data class StoredFile(
+        val path: Path,
+        val size: Long,
+        val lastModified: Long,
+        val etag: String,
+        val contentType: MediaType,
+    )
+
     private val uploadPath: Path = Paths.get(path).toAbsolutePath().normalize()
 
+    private val requiresNew = TransactionTemplate(transactionManager).apply {
+        propagationBehavior = TransactionDefinition.PROPAGATION_REQUIRES_NEW
+    }
+
+    // Загрузка пишется во временный файл на том же разделе и переносится под итоговое имя атомарно
+    private val tempPath: Path = uploadPath.resolve(TEMP_DIR)
+
     init {
         Files.createDirectories(uploadPath)
+        Files.createDirectories(tempPath)
     }
 
+    @Timed("files")
+    @Transactional
     fun store(file: MultipartFile): String {
         if (file.isEmpty) throw BadRequestException("File is empty")
         val originalFilename = file.originalFilename ?: "unknown"
         val extension = originalFilename.substringAfterLast('.', "").let {
             if (it.isBlank()) "" else ".$it"
         }
-        val filename = "${UUID.randomUUID()}$extension"
-        val targetLocation = uploadPath.resolve(filename)
-        file.inputStream.use { inputStream ->
-            Files.copy(inputStream, targetLocation)
+        val event = FileIoEvent()
+        event.begin()
+        val temp = Files.createTempFile(tempPath, "upload-", ".part")
+        try {
+            // Хеш для имени файла считается при записи, без повторного чтения
+            val sha256 = MessageDigest.getInstance("SHA-256")
+            val source = if (contentAddressed) DigestInputStream(file.inputStream, sha256) else file.inputStream
+            val bytes = source.use { inputStream ->
+                Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING)
+            }
+            val filename = if (contentAddressed) {
+                "${HexFormat.of().formatHex(sha256.digest())}$extension"
+            } else {
+                "${UUID.randomUUID()}$extension"
+            }
+            val targetLocation = shardedPath(filename)
+            // Ссылка учитывается до переноса файла: удаление последней ссылки убирает файл под
+            // блокировкой счетчика, поэтому файл, перенесенный после увеличения счетчика, не удаляется
+            if (contentAddressed) acquire(filename, bytes, 0)
+            Files.createDirectories(targetLocation.parent)
+            // Одинаковое содержимое перезаписывается тем же содержимым, поэтому замена безопасна
+            // и гарантирует наличие файла, даже если параллельное удаление успело его убрать
+            Files.move(temp, targetLocation, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            event.commit("store", filename, bytes)
+            return "http://localhost:8080/file/$filename"
+        } finally {
+            Files.deleteIfExists(temp)
         }
-        return "http://localhost:8080/file/$filename"
     }
 
+    /**
+     * Добавляет ссылку на уже сохраненный файл, например при копировании задания.
+     * Файлу без счетчика (единственный владелец) заводится счетчик на две ссылки.
+     */
+    @Transactional
+    fun retain(filename: String) {
+        if (fileBlobRepository.retain(filename) > 0) return
+        val filePath = locate(filename) ?: return
+        acquire(filename, Files.size(filePath), 1)
+    }
+
+    @Timed("files")
     fun loadAsResource(filename: String): Path? {
-        val filePath = uploadPath.resolve(filename).normalize()
-        return if (Files.exists(filePath) && Files.isReadable(filePath)) filePath else null
+        val event = FileIoEvent()
+        event.begin()
+        val filePath = locate(filename)
+        val found = filePath != null && Files.isReadable(filePath)
+        // Файл отдается контроллером потоком, поэтому событие фиксирует поиск и размер
+        event.commit("load", filename, if (found && event.shouldCommit()) Files.size(filePath!!) else -1)
+        return if (found) filePath else null
     }
 
+    /**
+     * Метаданные файла только по имени и атрибутам, содержимое не читается
+     */
+    fun describe(filename: String): StoredFile? {
+        val filePath = loadAsResource(filename) ?: return null
+        val attrs = Files.readAttributes(filePath, BasicFileAttributes::class.java)
+        val size = attrs.size()
+        val lastModified = attrs.lastModifiedTime().toMillis()
+        val contentType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM)
+        return StoredFile(filePath, size, lastModified, etagOf(filename, size, lastModified), contentType)
+    }
+
+    /**
+     * Передает диапазон файла через FileChannel.transferTo; для сокета или файла передача идет без копирования в куче
+     */
+    @Timed("files")
+    fun transfer(filePath: Path, position: Long, count: Long, target: WritableByteChannel) {
+        val event = FileIoEvent()
+        event.begin()
+        FileChannel.open(filePath, StandardOpenOption.READ).use { channel ->
+            var offset = position
+            val end = position + count
+            while (offset < end) {
+                val sent = channel.transferTo(offset, end - offset, target)
+                if (sent <= 0) break
+                offset += sent
+            }
+        }
+        event.commit("transfer", filePath.fileName.toString(), count)
+    }
+
+    /**
+     * Убирает ссылку на файл; сам файл удаляется после коммита, когда ссылок не осталось
+     */
+    @Transactional
     fun delete(filename: String) {
+        if (!isValidName(filename)) return
+        if (!fileBlobRepository.existsById(filename)) {
+            deleteFile(filename)
+            return
+        }
+        if (fileBlobRepository.release(filename) > 0) {
+            afterCommit { deleteIfUnreferenced(filename) }
+        }
+    }
+
+    /**
+     * Переносит до limit файлов плоской раскладки в шардированную. Перенос — атомарное
+     * переименование в пределах раздела, поэтому файлы остаются доступными во время миграции.
+     *
+     * @return число перенесенных файлов; 0 — миграция завершена
+     */
+    fun migrateFlatFiles(limit: Int): Int {
+        var moved = 0
+        Files.newDirectoryStream(uploadPath) { Files.isRegularFile(it) }.use { files ->
+            for (flat in files) {
+                if (moved >= limit) break
+                val target = shardedPath(flat.fileName.toString())
+                Files.createDirectories(target.parent)
+                Files.move(flat, target, StandardCopyOption.ATOMIC_MOVE)
+                moved++
+            }
+        }
+        return moved
+    }
+
+    /**
+     * Файлы хранилища, не менявшиеся с modifiedBefore, с их размером: шардированные и еще
+     * не перенесенные плоские. Временный каталог загрузок пропускается.
+     */
+    fun listFiles(modifiedBefore: Instant): MutableMap<String, Long> {
+        val files = HashMap<String, Long>()
+        Files.walkFileTree(uploadPath, emptySet(), SHARD_DEPTH + 1, object : SimpleFileVisitor<Path>() {
+            override fun preVisitDirectory(dir: Path, attrs: BasicFileAttributes) =
+                if (dir == tempPath) FileVisitResult.SKIP_SUBTREE else FileVisitResult.CONTINUE
+
+            override fun visitFile(file: Path, attrs: BasicFileAttributes): FileVisitResult {
+                if (attrs.isRegularFile && attrs.lastModifiedTime().toInstant().isBefore(modifiedBefore)) {
+                    files[file.fileName.toString()] = attrs.size()
+                }
+                return FileVisitResult.CONTINUE
+            }
+
+            // Файл могли удалить или перенести во время обхода
+            override fun visitFileFailed(file: Path, exc: IOException) = FileVisitResult.CONTINUE
+        })
+        return files
+    }
+
+    /**
+     * Удаляет файл, на который не ссылается ни одна сущность, вместе со счетчиком ссылок.
+     * Время изменения проверяется заново: то же содержимое могли загрузить повторно после сканирования.
+     * Строка счетчика блокируется до коммита, и под блокировкой ссылки проверяются еще раз:
+     * копия задания ([retain]) не меняет время изменения файла, но увеличивает счетчик и
+     * добавляет ссылку, поэтому файл с ненулевым счетчиком или найденной ссылкой не удаляется.
+     *
+     * @param isReferenced ссылается ли на файл с этим именем какая-либо сущность
+     * @return размер удаляемого файла или -1, если файл не удаляется
+     */
+    @Transactional
+    fun deleteOrphan(filename: String, modifiedBefore: Instant, isReferenced: Predicate<String>): Long {
+        val filePath = locate(filename) ?: return -1
+        val attrs = Files.readAttributes(filePath, BasicFileAttributes::class.java)
+        if (!attrs.lastModifiedTime().toInstant().isBefore(modifiedBefore)) return -1
+        val blob = fileBlobRepository.findForUpdate(filename).orElse(null)
+        if (blob != null && blob.refCount > 0) return -1
+        if (isReferenced.test(filename)) return -1
+        if (blob != null) {
+            fileBlobRepository.delete(blob)
+        }
+        afterCommit {
+            val current = locate(filename)
+            if (!fileBlobRepository.existsById(filename) && current != null &&
+                Files.getLastModifiedTime(current).toInstant().isBefore(modifiedBefore)
+            ) {
+                deleteFile(filename)
+            }
+        }
+        return attrs.size()
+    }
+
+    /**
+     * Добавляет ссылку на файл, заводя счетчик с existingRefs ссылками, если его еще нет.
+     * Счетчик вставляется в отдельной транзакции: при одновременной первой загрузке того же
+     * содержимого вставка проигравшего нарушает ключ, не прерывая его основную транзакцию,
+     * и ссылка добавляется к уже созданному счетчику.
+     */
+    private fun acquire(filename: String, size: Long, existingRefs: Int) {
+        while (fileBlobRepository.retain(filename) == 0) {
+            try {
+                requiresNew.executeWithoutResult {
+                    fileBlobRepository.saveAndFlush(FileBlob.builder()
+                        .name(filename)
+                        .size(size)
+                        .refCount(existingRefs)
+                        .createdAt(Instant.now())
+                        .build())
+                }
+            } catch (e: DataIntegrityViolationException) {
+                // Счетчик уже завел параллельный запрос
+            }
+        }
+    }
+
+    /**
+     * Удаляет файл и счетчик, если ссылок не осталось. Строка счетчика блокируется до коммита:
+     * параллельная загрузка того же содержимого ждет блокировку и затем заводит счетчик заново,
+     * а файл переносит уже после удаления.
+     */
+    private fun deleteIfUnreferenced(filename: String) {
+        requiresNew.executeWithoutResult {
+            val blob = fileBlobRepository.findForUpdate(filename).orElse(null)
+            if (blob != null && blob.refCount <= 0) {
+                fileBlobRepository.delete(blob)
+                deleteFile(filename)
+            }
+        }
+    }
+
+    /**
+     * Путь файла: сначала шардированный, затем плоский. Шардированный проверяется повторно,
+     * так как миграция могла перенести файл между двумя проверками.
+     */
+    private fun locate(filename: String): Path? {
+        if (!isValidName(filename)) return null
+        val sharded = shardedPath(filename)
+        if (Files.isRegularFile(sharded)) return sharded
+        val flat = uploadPath.resolve(filename)
+        if (Files.isRegularFile(flat)) return flat
+        return if (Files.isRegularFile(sharded)) sharded else null
+    }
+
+    private fun deleteFile(filename: String) {
+        Files.deleteIfExists(shardedPath(filename))
         Files.deleteIfExists(uploadPath.resolve(filename))
     }
-}
\ No newline at end of file
+
+    /**
+     * Каталоги шардов берутся из первых четырех символов имени, если это hex (UUID или SHA-256),
+     * иначе из SHA-256 имени
+     */
+    private fun shardedPath(filename: String): Path {
+        val key = if (filename.length >= 4 && filename.take(4).all { it in '0'..'9' || it in 'a'..'f' }) {
+            filename
+        } else {
+            HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(filename.toByteArray()))
+        }
+        return uploadPath.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(filename)
+    }
+
+    private fun isValidName(filename: String) =
+        filename.isNotBlank() && !filename.startsWith(".") && filename.none { it == '/' || it == '\\' }
+
+    private fun etagOf(filename: String, size: Long, lastModified: Long): String {
+        val hash = filename.substringBefore('.')
+        return if (hash.length == SHA256_HEX_LENGTH && hash.all { it in '0'..'9' || it in 'a'..'f' }) {
+            "\"$hash\""
+        } else {
+            "\"${size.toString(16)}-${lastModified.toString(16)}\""
+        }
+    }
+
+    private fun afterCommit(action: () -> Unit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action()
+            return
+        }
+        TransactionSynchronizationManager.registerSynchronization(object : TransactionSynchronization {
+            override fun afterCommit() = action()
+        })
+    }
+
+    private companion object {
+        const val TEMP_DIR = ".tmp"
+
+        // Файл лежит на глубине ab/cd/имя
+        const val SHARD_DEPTH = 2
+
+        const val SHA256_HEX_LENGTH = 64
+    }
+}
@@ -0,0 +1,180 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Кэш рассчитанных оценок: оценка за пост/задание по (цель, пользователь),
+ * оценка за предмет и таблица оценок предмета.
+ * <p>
+ * Размер ограничен, при переполнении вытесняются давно не читавшиеся записи (LRU).
+ * Записи также устаревают по TTL, так как штраф за дедлайн без сдачи растет со временем.
+ * Операции записи сбрасывают только затронутые записи, повторно — после коммита транзакции.
+ */
+@Slf4j
+@Component
+public class GradeCache {
+
+    public enum Kind {
+        CELL,
+        CHANNEL,
+        TABLE
+    }
+
+    /**
+     * @param targetId пост или командное задание; для CHANNEL и TABLE — null
+     * @param userId   для TABLE может быть null (таблица по всем студентам)
+     */
+    public record Key(Kind kind, UUID channelId, UUID targetId, Long userId) {
+
+        public static Key cell(UUID channelId, UUID targetId, Long userId) {
+            return new Key(Kind.CELL, channelId, targetId, userId);
+        }
+
+        public static Key channel(UUID channelId, Long userId) {
+            return new Key(Kind.CHANNEL, channelId, null, userId);
+        }
+
+        public static Key table(UUID channelId, Long userId) {
+            return new Key(Kind.TABLE, channelId, null, userId);
+        }
+    }
+
+    public record Stats(long size, long hits, long misses, long evictions, long invalidations) {
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Увеличивается при каждом сбросе; значение, рассчитанное до сброса, в кэш не попадает
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public GradeCache(@Value("${grades.cache.max-size:10000}") int maxSize,
+                      @Value("${grades.cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > GradeCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает значение из кэша или рассчитывает его через loader и сохраняет.
+     * Расчет выполняется вне блокировки.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        if (maxSize <= 0) {
+            return loader.get();
+        }
+
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() - now > 0) {
+                    hits.incrementAndGet();
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        T value = loader.get();
+
+        synchronized (entries) {
+            if (generation.get() == startGeneration) {
+                entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Изменилась оценка пользователя за пост или задание
+     */
+    public void invalidateCell(UUID channelId, UUID targetId, Long userId) {
+        invalidate(key -> channelId.equals(key.channelId())
+                && (key.kind() == Kind.CELL
+                ? targetId.equals(key.targetId()) && userId.equals(key.userId())
+                : key.userId() == null || userId.equals(key.userId())));
+    }
+
+    /**
+     * Изменились критерии поста или задания: затронуты все пользователи
+     */
+    public void invalidateTarget(UUID channelId, UUID targetId) {
+        invalidate(key -> channelId.equals(key.channelId())
+                && (key.kind() != Kind.CELL || targetId.equals(key.targetId())));
+    }
+
+    /**
+     * Изменился состав контрольных предмета: затронуты итоговые оценки всех пользователей
+     */
+    public void invalidateChannelAggregates(UUID channelId) {
+        invalidate(key -> channelId.equals(key.channelId()) && key.kind() != Kind.CELL);
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.get(), misses.get(), evictions.get(), invalidations.get());
+        }
+    }
+
+    private void invalidate(Predicate<Key> affected) {
+        removeMatching(affected);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeMatching(affected);
+                }
+            });
+        }
+    }
+
+    private void removeMatching(Predicate<Key> affected) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            int before = entries.size();
+            entries.keySet().removeIf(affected);
+            int removed = before - entries.size();
+            invalidations.addAndGet(removed);
+            if (removed > 0) {
+                log.debug("Сброшено {} записей кэша оценок", removed);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.hits.car_school_automatization.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.hits.car_school_automatization.dto.GradeTableCellDto;
+import ru.hits.car_school_automatization.dto.GradeTableRowDto;
+import ru.hits.car_school_automatization.dto.GradeTableTargetDto;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.GradeExportFormat;
+import ru.hits.car_school_automatization.exception.ForbiddenException;
+import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.repository.UserRepository;
+import ru.hits.car_school_automatization.util.RoleUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Потоковая выгрузка таблицы оценок предмета. Студенты обрабатываются порциями:
+ * общая часть предмета загружается один раз, для каждой порции пакетно загружаются
+ * сами студенты и их данные через {@link ChannelGradeLoader}, строки сразу пишутся в ответ,
+ * поэтому память не растет с размером предмета.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GradeExportService {
+
+    private final ChannelGradeLoader channelGradeLoader;
+    private final ChannelMembershipService channelMembershipService;
+    private final UserRepository userRepository;
+    private final JwtTokenProvider tokenProvider;
+    private final ObjectMapper objectMapper;
+
+    @Value("${grades.export.chunk-size:200}")
+    private int chunkSize;
+
+    public void checkExportAccess(UUID channelId, String authHeader) {
+        Long userId = tokenProvider.extractUserIdFromHeader(authHeader);
+        User requester = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        RoleUtils.requireTeacher(requester, "Выгружать таблицу оценок может только преподаватель");
+
+        if (!channelMembershipService.isMember(channelId, requester.getId())) {
+            throw new ForbiddenException("У пользователя нет доступа к этому предмету");
+        }
+    }
+
+    public void export(UUID channelId, GradeExportFormat format, OutputStream out) throws IOException {
+        List<Long> studentIds = channelGradeLoader.loadStudentIds(channelId);
+        ChannelGradeLoader.Targets channelTargets = channelGradeLoader.loadTargets(channelId);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        List<GradeTableTargetDto> targets = null;
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < studentIds.size() || targets == null; from += size) {
+            List<User> chunk = loadUsers(studentIds.subList(
+                    Math.min(from, studentIds.size()), Math.min(from + size, studentIds.size())));
+            ChannelGradeData data = channelGradeLoader.load(channelId, channelTargets, chunk);
+
+            if (targets == null) {
+                targets = data.tableTargets();
+                if (format == GradeExportFormat.CSV) {
+                    writeCsvHeader(writer, targets);
+                }
+            }
+
+            for (User student : chunk) {
+                GradeTableRowDto row = data.tableRow(student, targets);
+                if (format == GradeExportFormat.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+        }
+
+        log.info("Выгружена таблица оценок предмета {}: {} студентов", channelId, studentIds.size());
+    }
+
+    /**
+     * Пользователи порции в порядке id
+     */
+    private List<User> loadUsers(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return userRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(User::getId))
+                .toList();
+    }
+
+    private void writeCsvHeader(Writer writer, List<GradeTableTargetDto> targets) throws IOException {
+        // BOM, чтобы Excel корректно открыл кириллицу
+        writer.write('\uFEFF');
+        writer.write("userId,userName");
+        for (GradeTableTargetDto target : targets) {
+            writer.write(',');
+            writer.write(csvField(target.getLabel()));
+        }
+        writer.write(",channelGrade\n");
+    }
+
+    private void writeCsvRow(Writer writer, GradeTableRowDto row) throws IOException {
+        writer.write(String.valueOf(row.getUserId()));
+        writer.write(',');
+        writer.write(csvField(row.getUserName()));
+        for (GradeTableCellDto cell : row.getGrades()) {
+            writer.write(',');
+            if (cell.getRawValue() != null) {
+                writer.write(cell.getRawValue().toString());
+            }
+        }
+        writer.write(',');
+        writer.write(String.valueOf(row.getChannelGrade()));
+        writer.write('\n');
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
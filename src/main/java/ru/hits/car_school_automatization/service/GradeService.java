@@ -1,42 +1,51 @@
 package ru.hits.car_school_automatization.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.util.function.SingletonSupplier;
 import ru.hits.car_school_automatization.dto.*;
 import ru.hits.car_school_automatization.entity.*;
 import ru.hits.car_school_automatization.enums.*;
 import ru.hits.car_school_automatization.exception.BadRequestException;
 import ru.hits.car_school_automatization.exception.ForbiddenException;
 import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.jfr.GradeTableEvent;
 import ru.hits.car_school_automatization.repository.*;
+import ru.hits.car_school_automatization.util.GradeCalculator;
 import ru.hits.car_school_automatization.util.RoleUtils;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed("grades")
 public class GradeService {
 
     private final MetricRepository metricRepository;
     private final MetricValueRepository metricValueRepository;
-    private final ControlRepository controlRepository;
     private final PostRepository postRepository;
     private final TaskRepository taskRepository;
     private final TeamRepository teamRepository;
     private final SolutionRepository solutionRepository;
     private final TaskSolutionRepository taskSolutionRepository;
     private final ChannelRepository channelRepository;
+    private final ChannelMembershipService channelMembershipService;
     private final UserRepository userRepository;
     private final JwtTokenProvider tokenProvider;
     private final P2PPairPersonalRepository p2pPairPersonalRepository;
     private final P2PPairTeamRepository p2pPairTeamRepository;
+    private final ChannelGradeLoader channelGradeLoader;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
+    private final StudentGradeExecutor studentGradeExecutor;
 
     public double getPostGrade(UUID postId, Long userId, String authHeader) {
         User requester = getUserFromHeader(authHeader);
@@ -60,20 +69,23 @@ public class GradeService {
 
         validateUserInChannel(post.getChannelId(), targetUserId);
 
+        return gradeCache.get(GradeCache.Key.cell(post.getChannelId(), postId, targetUserId),
+                () -> post.getType() == PostType.TASK
+                        ? gradeSnapshotService.findFresh(postId, targetUserId).orElseGet(() -> calculatePostGrade(post, targetUserId))
+                        : calculatePostGrade(post, targetUserId));
+    }
+
+    private double calculatePostGrade(Post post, Long userId) {
         double mark;
         if (post.getType() == PostType.CONTROL) {
-            mark = calculateControlPostValue(postId, targetUserId);
+            mark = calculateControlPostValue(post.getId(), userId);
         } else {
-            mark = calculateMetrics(metricRepository.findByPostId(postId), targetUserId);
+            mark = calculateMetrics(metricRepository.findByPostId(post.getId()), userId);
         }
-        DeadlinePenalty postPenalty = post.getDeadlinePenalty();
-        mark = applyDeadlinePenalty(mark, postPenalty != null ? postPenalty.getUnit() : null,
-                postPenalty != null ? postPenalty.getStep() : null,
-                postPenalty != null ? postPenalty.getValue() : null,
+        return GradeCalculator.applyDeadlinePenalty(mark, post.getDeadlinePenalty(),
                 post.getDeadline() != null ? post.getDeadline().toInstant(ZoneOffset.UTC) : null,
-                getPostSubmissionTime(postId, targetUserId));
-
-        return mark;
+                getPostSubmissionTime(post.getId(), userId),
+                Instant.now());
     }
 
     public List<UserGradeDto> getPostGrades(UUID postId, Long userId, String authHeader) {
@@ -98,50 +110,16 @@ public class GradeService {
         var channel = channelRepository.findById(post.getChannelId())
                 .orElseThrow(() -> new NotFoundException("Предмет не найден"));
 
-        return channel.getUsers().stream()
+        List<User> students = channel.getUsers().stream()
                 .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
-                .map(u -> UserGradeDto.builder()
-                        .userId(u.getId())
-                        .value(getPostGrade(postId, u.getId(), authHeader))
-                        .build())
                 .toList();
+
+        return gradeStudents(post.getChannelId(), postId, students, (data, studentId) -> data.postGrade(post, studentId));
     }
 
     private double calculateControlPostValue(UUID postId, Long userId) {
         List<Metric> metrics = metricRepository.findByPostId(postId);
-        if (metrics == null || metrics.isEmpty()) {
-            return 1.0;
-        }
-
-        Metric metric = resolveSingleCoefficientMetric(metrics);
-        if (metric == null) {
-            return 1.0;
-        }
-
-        Map<UUID, MetricValue> values = metricValueRepository
-                .findByMetricIdInAndUserId(List.of(metric.getId()), userId)
-                .stream()
-                .collect(Collectors.toMap(MetricValue::getMetricId, Function.identity()));
-
-        MetricValue metricValue = values.get(metric.getId());
-        return metricValue != null ? metricValue.getValue() : metric.getMinValue();
-    }
-
-    private Metric resolveSingleCoefficientMetric(List<Metric> metrics) {
-        if (metrics == null || metrics.isEmpty()) {
-            return null;
-        }
-
-        List<Metric> coefficientMetrics = metrics.stream()
-                .filter(m -> m.getType() == MetricType.COEFFICIENT)
-                .sorted(Comparator.comparing(Metric::getId))
-                .toList();
-
-        if (!coefficientMetrics.isEmpty()) {
-            return coefficientMetrics.getFirst();
-        }
-
-        return metrics.size() == 1 ? metrics.getFirst() : null;
+        return GradeCalculator.calculateControlValue(metrics, loadMetricValues(metrics, userId));
     }
 
     public double getTaskGrade(UUID taskId, Long userId, String authHeader) {
@@ -173,20 +151,21 @@ public class GradeService {
 
         validateUserInChannel(task.getChannel().getId(), targetUserId);
 
-        Team team = teamRepository.findByTask_IdAndUsers_Id(taskId, targetUserId).orElse(null);
+        return gradeCache.get(GradeCache.Key.cell(task.getChannel().getId(), taskId, targetUserId),
+                () -> gradeSnapshotService.findFresh(taskId, targetUserId).orElseGet(() -> calculateTaskGrade(task, targetUserId)));
+    }
+
+    private double calculateTaskGrade(Task task, Long userId) {
+        Team team = teamRepository.findByTask_IdAndUsers_Id(task.getId(), userId).orElse(null);
         if (team == null) {
             return 0.0;
         }
 
-        double mark = calculateMetrics(metricRepository.findByTaskId(taskId), targetUserId);
-        DeadlinePenalty taskPenalty = task.getDeadlinePenalty();
-        mark = applyDeadlinePenalty(mark, taskPenalty != null ? taskPenalty.getUnit() : null,
-                taskPenalty != null ? taskPenalty.getStep() : null,
-                taskPenalty != null ? taskPenalty.getValue() : null,
+        double mark = calculateMetrics(metricRepository.findByTaskId(task.getId()), userId);
+        return GradeCalculator.applyDeadlinePenalty(mark, task.getDeadlinePenalty(),
                 team.getDeadline(),
-                getTeamSubmissionTime(taskId, team.getId()));
-
-        return mark;
+                getTeamSubmissionTime(task.getId(), team.getId()),
+                Instant.now());
     }
 
     public List<UserGradeDto> getTaskGrades(UUID taskId, Long userId, String authHeader) {
@@ -210,17 +189,15 @@ public class GradeService {
             return List.of();
         }
 
-        return teams.stream()
+        List<User> students = List.copyOf(teams.stream()
                 .filter(t -> t.getUsers() != null)
                 .flatMap(t -> t.getUsers().stream())
                 .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
                 .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a))
-                .values().stream()
-                .map(u -> UserGradeDto.builder()
-                        .userId(u.getId())
-                        .value(getTaskGrade(task.getId(), u.getId(), authHeader))
-                        .build())
-                .toList();
+                .values());
+
+        validateStudentsInChannel(task.getChannel().getId(), students);
+        return gradeStudents(task.getChannel().getId(), taskId, students, (data, studentId) -> data.taskGrade(task, studentId));
     }
 
     public List<UserGradeDto> getTaskTeamGrades(UUID taskId, UUID teamId, String authHeader) {
@@ -261,13 +238,13 @@ public class GradeService {
             return List.of();
         }
 
-        return team.getUsers().stream()
+        List<User> students = team.getUsers().stream()
                 .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
-                .map(u -> UserGradeDto.builder()
-                        .userId(u.getId())
-                        .value(getTaskGrade(taskId, u.getId(), authHeader))
-                        .build())
                 .toList();
+
+        Task task = team.getTask();
+        validateStudentsInChannel(task.getChannel().getId(), students);
+        return gradeStudents(task.getChannel().getId(), taskId, students, (data, studentId) -> data.taskGrade(task, studentId));
     }
 
     public double getChannelGrade(UUID channelId, Long userId, String authHeader) {
@@ -276,28 +253,51 @@ public class GradeService {
 
         validateUserInChannel(channelId, targetUserId);
 
-        List<Post> taskPosts = postRepository.findByChannelIdAndType(channelId, PostType.TASK);
-        List<Task> tasks = taskRepository.findByChannel_Id(channelId);
-        List<Control> controls = controlRepository.findByChannelId(channelId);
+        return gradeCache.get(GradeCache.Key.channel(channelId, targetUserId),
+                () -> channelGradeLoader.load(channelId, targetUserId).channelGrade(targetUserId));
+    }
 
-        double sum = 0.0;
-        int count = 0;
+    /**
+     * Оценки за предметы для набора пар (предмет, пользователь). Данные предмета загружаются
+     * один раз и только если хотя бы одной оценки нет в кэше; по ним считаются все запрошенные
+     * пользователи предмета. Результат сгруппирован по предметам, повторяющиеся пары отбрасываются.
+     */
+    public List<ChannelUserGradeDto> getChannelGrades(ChannelGradeBatchDto dto, String authHeader) {
+        User requester = getUserFromHeader(authHeader);
 
-        for (Post post : taskPosts) {
-            double mark = getPostGrade(post.getId(), targetUserId, authHeader);
-            mark = applyControlCoefficients(mark, controls, post.getId(), null, targetUserId);
-            sum += mark;
-            count += 1;
+        Map<UUID, Set<Long>> usersByChannel = new LinkedHashMap<>();
+        for (ChannelGradeBatchDto.Item item : dto.getItems()) {
+            Long targetUserId = resolveTargetUserId(requester, item.getUserId());
+            usersByChannel.computeIfAbsent(item.getChannelId(), key -> new LinkedHashSet<>()).add(targetUserId);
         }
 
-        for (Task task : tasks) {
-            double mark = getTaskGrade(task.getId(), targetUserId, authHeader);
-            mark = applyControlCoefficients(mark, controls, null, task.getId(), targetUserId);
-            sum += mark;
-            count += 1;
-        }
+        List<ChannelUserGradeDto> result = new ArrayList<>();
+        usersByChannel.forEach((channelId, userIds) -> {
+            Channel channel = channelRepository.findById(channelId)
+                    .orElseThrow(() -> new NotFoundException("Предмет не найден"));
+            Map<Long, User> members = channel.getUsers().stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            if (!members.keySet().containsAll(userIds)) {
+                throw new ForbiddenException("У пользователя нет доступа к этому предмету");
+            }
 
-        return count == 0 ? 0.0 : sum / count;
+            List<User> students = userIds.stream()
+                    .map(members::get)
+                    .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
+                    .toList();
+            SingletonSupplier<ChannelGradeData> data = SingletonSupplier.of(() -> channelGradeLoader.load(channelId, students));
+
+            for (Long userId : userIds) {
+                double value = gradeCache.get(GradeCache.Key.channel(channelId, userId),
+                        () -> data.obtain().channelGrade(userId));
+                result.add(ChannelUserGradeDto.builder()
+                        .channelId(channelId)
+                        .userId(userId)
+                        .value(value)
+                        .build());
+            }
+        });
+        return result;
     }
 
     public GradeTableDto getChannelGradeTable(UUID channelId, Long userId, String authHeader) {
@@ -313,218 +313,58 @@ public class GradeService {
             validateUserInChannel(channelId, userId);
         }
 
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new NotFoundException("Предмет не найден"));
-
-        List<User> students = channel.getUsers().stream()
-                .filter(u -> u.getRole() != null && u.getRole().contains(Role.STUDENT))
-                .toList();
-
-        if (userId != null) {
-            Long finalUserId = userId;
-            students = students.stream()
-                    .filter(u -> u.getId().equals(finalUserId))
-                    .toList();
-        }
-
-        List<Post> postTasks = postRepository.findByChannelIdAndType(channelId, PostType.TASK);
-        List<Task> tasks = taskRepository.findByChannel_Id(channelId);
-        List<Control> controls = controlRepository.findByChannelId(channelId);
-
-        Map<UUID, List<UUID>> controlIdsByTarget = new HashMap<>();
-        Map<UUID, Control> controlsById = controls.stream()
-                .collect(Collectors.toMap(Control::getPostId, Function.identity(), (a, b) -> a));
-
-        for (Control control : controls) {
-            UUID controlId = control.getPostId();
-            for (UUID postId : control.getPostTaskIds()) {
-                controlIdsByTarget
-                        .computeIfAbsent(postId, key -> new ArrayList<>())
-                        .add(controlId);
-            }
-            for (UUID taskId : control.getTaskIds()) {
-                controlIdsByTarget
-                        .computeIfAbsent(taskId, key -> new ArrayList<>())
-                        .add(controlId);
-            }
-        }
-
-        Map<UUID, Post> controlPostsById = postRepository.findAllById(controlsById.keySet()).stream()
-                .collect(Collectors.toMap(Post::getId, Function.identity(), (a, b) -> a));
-
-        List<GradeTableTargetWithTime> targetEntries = new ArrayList<>();
-        for (Post post : postTasks) {
-            Instant createdAt = post.getCreatedAt() != null
-                    ? post.getCreatedAt().toInstant(ZoneOffset.UTC)
-                    : Instant.EPOCH;
-            targetEntries.add(new GradeTableTargetWithTime(
-                    GradeTableTargetDto.builder()
-                            .targetId(post.getId())
-                            .label(post.getLabel())
-                            .type(GradeTargetType.POST_TASK)
-                            .build(),
-                    createdAt
-            ));
-        }
-
-        for (Task task : tasks) {
-            Instant startAt = task.getStartAt() != null ? task.getStartAt() : Instant.EPOCH;
-            targetEntries.add(new GradeTableTargetWithTime(
-                    GradeTableTargetDto.builder()
-                            .targetId(task.getId())
-                            .label(task.getLabel())
-                            .type(GradeTargetType.TASK)
-                            .build(),
-                    startAt
-            ));
-        }
+        Long tableUserId = userId;
+        return gradeCache.get(GradeCache.Key.table(channelId, tableUserId),
+                () -> buildGradeTable(channelId, tableUserId));
+    }
 
-        for (Control control : controls) {
-            Post controlPost = controlPostsById.get(control.getPostId());
-            String label = controlPost != null ? controlPost.getLabel() : null;
-            Instant createdAt = controlPost != null && controlPost.getCreatedAt() != null
-                    ? controlPost.getCreatedAt().toInstant(ZoneOffset.UTC)
-                    : Instant.EPOCH;
-            targetEntries.add(new GradeTableTargetWithTime(
-                    GradeTableTargetDto.builder()
-                            .targetId(control.getPostId())
-                            .label(label)
-                            .type(GradeTargetType.CONTROL)
-                            .build(),
-                    createdAt
-            ));
-        }
+    private GradeTableDto buildGradeTable(UUID channelId, Long userId) {
+        GradeTableEvent event = new GradeTableEvent();
+        event.begin();
 
-        List<GradeTableTargetDto> targets = targetEntries.stream()
-                .sorted(Comparator.comparing(GradeTableTargetWithTime::sortKey))
-                .map(GradeTableTargetWithTime::target)
+        ChannelGradeData data = channelGradeLoader.load(channelId, userId);
+        List<GradeTableTargetDto> targets = data.tableTargets();
+        List<GradeTableRowDto> rows = data.getStudents().stream()
+                .map(student -> data.tableRow(student, targets))
                 .toList();
 
-        List<GradeTableRowDto> rows = new ArrayList<>();
-        for (User student : students) {
-            List<GradeTableCellDto> grades = new ArrayList<>();
-            double sum = 0.0;
-            int count = 0;
-            for (GradeTableTargetDto target : targets) {
-                Double rawValue;
-                if (target.getType() == GradeTargetType.POST_TASK) {
-                    rawValue = getPostGrade(target.getTargetId(), student.getId(), authHeader);
-                    double adjusted = applyControlCoefficients(rawValue, controls, target.getTargetId(), null, student.getId());
-                    sum += adjusted;
-                    count += 1;
-                } else if (target.getType() == GradeTargetType.TASK) {
-                    rawValue = getTaskGrade(target.getTargetId(), student.getId(), authHeader);
-                    double adjusted = applyControlCoefficients(rawValue, controls, null, target.getTargetId(), student.getId());
-                    sum += adjusted;
-                    count += 1;
-                } else {
-                    Control control = controlsById.get(target.getTargetId());
-                    rawValue = control != null ? calculateControlCoefficient(control, student.getId()) : null;
-                }
-
-                List<UUID> controlIds = controlIdsByTarget.getOrDefault(target.getTargetId(), List.of());
-                grades.add(GradeTableCellDto.builder()
-                        .targetId(target.getTargetId())
-                        .rawValue(rawValue)
-                        .controlIds(controlIds)
-                        .build());
-            }
-
-            String userName = student.getFirstName() + " " + student.getLastName();
-            rows.add(GradeTableRowDto.builder()
-                    .userId(student.getId())
-                    .userName(userName)
-                    .channelGrade(count == 0 ? 0.0 : sum / count)
-                    .grades(grades)
-                    .build());
-        }
-
+        event.commit(channelId, rows.size(), targets.size());
         return GradeTableDto.builder()
                 .targets(targets)
                 .rows(rows)
                 .build();
     }
 
-    private record GradeTableTargetWithTime(GradeTableTargetDto target, Instant sortKey) {
+    /**
+     * Оценки студентов за пост или задание. Данные предмета загружаются один раз в транзакции
+     * вызывающего фиксированным числом запросов; параллельно (см. {@link StudentGradeExecutor})
+     * выполняется только расчет в памяти, без обращений к БД. Членство студентов в предмете
+     * проверяет вызывающий (см. {@link #validateStudentsInChannel}).
+     */
+    private List<UserGradeDto> gradeStudents(UUID channelId, UUID targetId, List<User> students,
+                                             BiFunction<ChannelGradeData, Long, Double> grade) {
+        ChannelGradeData data = channelGradeLoader.load(channelId, students);
+        return studentGradeExecutor.map(students, u -> UserGradeDto.builder()
+                .userId(u.getId())
+                .value(gradeCache.get(GradeCache.Key.cell(channelId, targetId, u.getId()),
+                        () -> grade.apply(data, u.getId())))
+                .build());
     }
 
     private double calculateMetrics(List<Metric> metrics, Long userId) {
         if (metrics == null || metrics.isEmpty()) {
             return 0.0;
         }
-
-        List<UUID> metricIds = metrics.stream().map(Metric::getId).toList();
-        Map<UUID, MetricValue> values = metricValueRepository.findByMetricIdInAndUserId(metricIds, userId).stream()
-                .collect(Collectors.toMap(MetricValue::getMetricId, Function.identity()));
-
-        List<Double> markValues = new ArrayList<>();
-        List<Double> constraints = new ArrayList<>();
-        double coefficientProduct = 1.0;
-
-        for (Metric metric : metrics) {
-            double value = values.get(metric.getId()) != null ? values.get(metric.getId()).getValue() : metric.getMinValue();
-
-            if (metric.getType() == MetricType.MARK) {
-                markValues.add(value);
-            } else if (metric.getType() == MetricType.COEFFICIENT) {
-                coefficientProduct *= value;
-            } else if (metric.getType() == MetricType.CONSTRAINT) {
-                constraints.add(value);
-            }
-        }
-
-        double base = markValues.isEmpty() ? 0.0 : markValues.stream().mapToDouble(Double::doubleValue).sum() / markValues.size();
-        double result = base * coefficientProduct;
-
-        for (Double limit : constraints) {
-            if (limit != null && result > limit) {
-                result = limit;
-            }
-        }
-
-        return result;
-    }
-
-    private double applyControlCoefficients(double mark, List<Control> controls, UUID postId, UUID taskId, Long userId) {
-        if (controls == null || controls.isEmpty()) {
-            return mark;
-        }
-
-        double result = mark;
-
-        for (Control control : controls) {
-            boolean applies = (postId != null && control.getPostTaskIds().contains(postId))
-                    || (taskId != null && control.getTaskIds().contains(taskId));
-
-            if (!applies) {
-                continue;
-            }
-
-            double coef = calculateControlCoefficient(control, userId);
-            result *= coef;
-        }
-
-        return result;
+        return GradeCalculator.calculateMetrics(metrics, loadMetricValues(metrics, userId));
     }
 
-    private double calculateControlCoefficient(Control control, Long userId) {
-        List<Metric> metrics = metricRepository.findByPostId(control.getPostId());
+    private Map<UUID, Double> loadMetricValues(List<Metric> metrics, Long userId) {
         if (metrics == null || metrics.isEmpty()) {
-            return 1.0;
-        }
-
-        Metric metric = resolveSingleCoefficientMetric(metrics);
-        if (metric == null) {
-            return 1.0;
+            return Map.of();
         }
-
-        Map<UUID, MetricValue> values = metricValueRepository
-                .findByMetricIdInAndUserId(List.of(metric.getId()), userId)
-                .stream()
-                .collect(Collectors.toMap(MetricValue::getMetricId, Function.identity()));
-
-        MetricValue metricValue = values.get(metric.getId());
-        return metricValue != null ? metricValue.getValue() : metric.getMinValue();
+        List<UUID> metricIds = metrics.stream().map(Metric::getId).toList();
+        return metricValueRepository.findByMetricIdInAndUserId(metricIds, userId).stream()
+                .collect(Collectors.toMap(MetricValue::getMetricId, MetricValue::getValue));
     }
 
     private Instant getPostSubmissionTime(UUID postId, Long userId) {
@@ -545,35 +385,6 @@ public class GradeService {
                 .orElse(null);
     }
 
-    private double applyDeadlinePenalty(double mark, DeadlinePenaltyUnit unit, Integer step, Double penaltyValue,
-                                        Instant deadline, Instant submittedAt) {
-        if (unit == null || step == null || step <= 0 || penaltyValue == null || deadline == null) {
-            return mark;
-        }
-
-        Instant actualTime = submittedAt != null ? submittedAt : Instant.now();
-        if (!actualTime.isAfter(deadline)) {
-            return mark;
-        }
-
-        Duration duration = Duration.between(deadline, actualTime);
-        long delta;
-
-        switch (unit) {
-            case MINUTE -> delta = duration.toMinutes();
-            case HOUR -> delta = duration.toHours();
-            case DAY -> delta = duration.toDays();
-            default -> delta = 0;
-        }
-
-        if (delta <= 0) {
-            return mark;
-        }
-
-        long steps = delta / step;
-        return Math.max(0.0, mark - steps * penaltyValue);
-    }
-
     private Long resolveTargetUserId(User requester, Long userId) {
         if (userId == null) {
             return requester.getId();
@@ -590,10 +401,21 @@ public class GradeService {
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
     }
 
+    /**
+     * Проверка членства студентов команд одним запросом к составу предмета вместо запроса на каждого
+     */
+    private void validateStudentsInChannel(UUID channelId, List<User> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        Set<Long> channelStudentIds = new HashSet<>(channelGradeLoader.loadStudentIds(channelId));
+        if (students.stream().anyMatch(student -> !channelStudentIds.contains(student.getId()))) {
+            throw new ForbiddenException("У пользователя нет доступа к этому предмету");
+        }
+    }
+
     private void validateUserInChannel(UUID channelId, Long userId) {
-        boolean inChannel = channelRepository.getUsersChannelByUserId(userId).stream()
-                .anyMatch(channel -> channel.getId().equals(channelId));
-        if (!inChannel) {
+        if (!channelMembershipService.isMember(channelId, userId)) {
             throw new ForbiddenException("У пользователя нет доступа к этому предмету");
         }
     }
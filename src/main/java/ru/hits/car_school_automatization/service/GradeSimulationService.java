@@ -0,0 +1,104 @@
+package ru.hits.car_school_automatization.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.hits.car_school_automatization.dto.DeadlinePenaltyDto;
+import ru.hits.car_school_automatization.dto.GradeSimulationDto;
+import ru.hits.car_school_automatization.dto.GradeSimulationResultDto;
+import ru.hits.car_school_automatization.dto.GradeTableTargetDto;
+import ru.hits.car_school_automatization.entity.DeadlinePenalty;
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.exception.BadRequestException;
+import ru.hits.car_school_automatization.exception.ForbiddenException;
+import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.repository.ChannelRepository;
+import ru.hits.car_school_automatization.repository.UserRepository;
+import ru.hits.car_school_automatization.util.DeadlinePenaltyUtils;
+import ru.hits.car_school_automatization.util.RoleUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Расчет "что если": гипотетические значения критериев и штрафы накладываются на снимок
+ * данных предмета ({@link ChannelGradeData#withOverrides}) и считаются в памяти.
+ * После первоначальной загрузки к базе обращений нет, ничего не сохраняется.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class GradeSimulationService {
+
+    private final ChannelGradeLoader channelGradeLoader;
+    private final ChannelRepository channelRepository;
+    private final ChannelMembershipService channelMembershipService;
+    private final UserRepository userRepository;
+    private final JwtTokenProvider tokenProvider;
+
+    public GradeSimulationResultDto simulate(UUID channelId, GradeSimulationDto dto, String authHeader) {
+        Long requesterId = tokenProvider.extractUserIdFromHeader(authHeader);
+        User requester = userRepository.findById(requesterId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        Long targetUserId = dto.getUserId() == null ? requester.getId() : dto.getUserId();
+        if (!RoleUtils.isTeacherOrManager(requester) && !requester.getId().equals(targetUserId)) {
+            throw new ForbiddenException("Недостаточно прав для просмотра оценки");
+        }
+
+        if (!channelRepository.existsById(channelId)) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        if (!channelMembershipService.isMember(channelId, targetUserId)) {
+            throw new ForbiddenException("У пользователя нет доступа к этому предмету");
+        }
+        User student = userRepository.findById(targetUserId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        if (student.getRole() == null || !student.getRole().contains(Role.STUDENT)) {
+            throw new BadRequestException("Оценки рассчитываются только для студентов");
+        }
+
+        ChannelGradeData data = channelGradeLoader.load(channelId, List.of(student));
+        ChannelGradeData simulated = data.withOverrides(targetUserId,
+                validateMetricValues(data, dto.getMetricValues()),
+                buildPenalties(data, dto.getPenalties()));
+
+        List<GradeTableTargetDto> targets = data.tableTargets();
+        return GradeSimulationResultDto.builder()
+                .current(data.tableRow(student, targets))
+                .simulated(simulated.tableRow(student, targets))
+                .build();
+    }
+
+    private Map<UUID, Double> validateMetricValues(ChannelGradeData data, Map<UUID, Double> metricValues) {
+        if (metricValues == null) {
+            return Map.of();
+        }
+        metricValues.forEach((metricId, value) -> {
+            Metric metric = data.findMetric(metricId)
+                    .orElseThrow(() -> new BadRequestException("Критерий " + metricId + " не относится к предмету"));
+            if (value != null && (value < metric.getMinValue() || value > metric.getMaxValue())) {
+                throw new BadRequestException("Значение критерия " + metricId + " вне допустимого диапазона");
+            }
+        });
+        return metricValues;
+    }
+
+    private Map<UUID, DeadlinePenalty> buildPenalties(ChannelGradeData data, Map<UUID, DeadlinePenaltyDto> penalties) {
+        Map<UUID, DeadlinePenalty> result = new HashMap<>();
+        if (penalties == null) {
+            return result;
+        }
+        penalties.forEach((targetId, penalty) -> {
+            if (!data.isGradedTarget(targetId)) {
+                throw new BadRequestException("Задание " + targetId + " не относится к предмету");
+            }
+            result.put(targetId, DeadlinePenaltyUtils.build(penalty));
+        });
+        return result;
+    }
+}
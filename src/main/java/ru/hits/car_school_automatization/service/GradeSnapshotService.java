@@ -0,0 +1,305 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hits.car_school_automatization.entity.GradeSnapshot;
+import ru.hits.car_school_automatization.entity.GradeSnapshotTarget;
+import ru.hits.car_school_automatization.entity.P2PParam;
+import ru.hits.car_school_automatization.entity.Post;
+import ru.hits.car_school_automatization.entity.Task;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.GradeTargetType;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.repository.GradeSnapshotRepository;
+import ru.hits.car_school_automatization.repository.GradeSnapshotTargetRepository;
+import ru.hits.car_school_automatization.repository.P2PParamRepository;
+import ru.hits.car_school_automatization.repository.PostRepository;
+import ru.hits.car_school_automatization.repository.TaskRepository;
+import ru.hits.car_school_automatization.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Снимки оценок за завершенные задания: посты TASK и командные задания, у которых прошли
+ * и дедлайн, и дедлайн P2P проверки. Такие оценки почти не меняются, поэтому чтение
+ * берет значение из grade_snapshots, пока снимок не помечен устаревшим.
+ * <p>
+ * Запись значения критерия или решения помечает снимок устаревшим; флаг stale служит
+ * очередью пересчета, которую разбирает {@link #refresh()} из планировщика.
+ * Обработанные задания отмечаются в {@link GradeSnapshotTarget}, чтобы не искать их повторно.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GradeSnapshotService {
+
+    private final GradeSnapshotRepository gradeSnapshotRepository;
+    private final GradeSnapshotTargetRepository gradeSnapshotTargetRepository;
+    private final PostRepository postRepository;
+    private final TaskRepository taskRepository;
+    private final P2PParamRepository p2pParamRepository;
+    private final UserRepository userRepository;
+    private final ChannelGradeLoader channelGradeLoader;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${grades.snapshots.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grades.snapshots.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Актуальная оценка из снимка; пусто, если снимка нет, он устарел или оценка еще зависит от времени
+     */
+    @Transactional(readOnly = true)
+    public OptionalDouble findFresh(UUID targetId, Long userId) {
+        if (!enabled) {
+            return OptionalDouble.empty();
+        }
+        return gradeSnapshotRepository.findByTargetIdAndUserId(targetId, userId)
+                .filter(snapshot -> !snapshot.isStale() && snapshot.getValue() != null)
+                .map(snapshot -> OptionalDouble.of(snapshot.getValue()))
+                .orElse(OptionalDouble.empty());
+    }
+
+    /**
+     * Помечает снимок оценки пользователя устаревшим и ставит его в очередь пересчета
+     */
+    @Transactional
+    public void markStale(UUID targetId, Long userId) {
+        gradeSnapshotRepository.markStale(targetId, userId);
+    }
+
+    /**
+     * Помечает устаревшими снимки всех пользователей по заданию. Задание без снимков
+     * (например, завершилось, когда в предмете не было студентов) снова попадет в поиск завершенных.
+     */
+    @Transactional
+    public void markTargetStale(UUID targetId) {
+        gradeSnapshotRepository.markTargetStale(targetId);
+        gradeSnapshotTargetRepository.deleteByTargetId(targetId);
+    }
+
+    /**
+     * Удаляет снимки удаленного задания
+     */
+    @Transactional
+    public void deleteTarget(UUID targetId) {
+        gradeSnapshotRepository.deleteByTargetId(targetId);
+        gradeSnapshotTargetRepository.deleteByTargetId(targetId);
+    }
+
+    /**
+     * Один проход фонового пересчета: сначала пересчитываются устаревшие снимки,
+     * затем создаются снимки для заданий, завершившихся с прошлого прохода.
+     * Каждое задание обрабатывается в своей транзакции, ошибка по одному заданию не останавливает проход.
+     */
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+
+        List<UUID> staleTargetIds = transactionTemplate.execute(status ->
+                gradeSnapshotRepository.findByStaleTrue(PageRequest.of(0, batchSize)).stream()
+                        .map(GradeSnapshot::getTargetId)
+                        .distinct()
+                        .toList());
+        for (UUID targetId : staleTargetIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> recomputeTarget(targetId, now));
+            } catch (Exception e) {
+                log.error("Ошибка при пересчете снимков оценок для задания {}", targetId, e);
+            }
+        }
+
+        Map<UUID, List<UUID>> newTargetsByChannel = transactionTemplate.execute(status -> findNewFinishedTargets(now));
+        newTargetsByChannel.forEach((channelId, targetIds) -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> createSnapshots(channelId, targetIds, now));
+            } catch (Exception e) {
+                log.error("Ошибка при создании снимков оценок для предмета {}", channelId, e);
+            }
+        });
+    }
+
+    private void recomputeTarget(UUID targetId, Instant now) {
+        List<GradeSnapshot> snapshots = gradeSnapshotRepository.findByTargetId(targetId);
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        Target target = resolveTarget(targetId, snapshots.getFirst().getTargetType());
+        if (target == null || !isFinished(target, now)) {
+            // Задание удалено или снова открыто (перенесли дедлайн) — оценки считаются на лету
+            gradeSnapshotRepository.deleteByTargetId(targetId);
+            return;
+        }
+
+        Map<Long, User> students = userRepository.findAllById(snapshots.stream().map(GradeSnapshot::getUserId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        ChannelGradeData data = channelGradeLoader.load(target.channelId(), List.copyOf(students.values()));
+
+        List<GradeSnapshot> updated = new ArrayList<>();
+        List<GradeSnapshot> removed = new ArrayList<>();
+        for (GradeSnapshot snapshot : snapshots) {
+            if (!students.containsKey(snapshot.getUserId())) {
+                removed.add(snapshot);
+                continue;
+            }
+            snapshot.setValue(settledGrade(data, target, snapshot.getUserId()));
+            snapshot.setStale(false);
+            snapshot.setComputedAt(now);
+            updated.add(snapshot);
+        }
+        gradeSnapshotRepository.deleteAll(removed);
+        gradeSnapshotRepository.saveAll(updated);
+    }
+
+    private Map<UUID, List<UUID>> findNewFinishedTargets(Instant now) {
+        List<Target> finished = new ArrayList<>();
+        postRepository.findUnsnapshottedByTypeAndDeadlineBefore(PostType.TASK, LocalDateTime.ofInstant(now, ZoneOffset.UTC))
+                .forEach(post -> finished.add(Target.of(post)));
+        taskRepository.findUnsnapshottedWithAllTeamDeadlinesBefore(now)
+                .forEach(task -> finished.add(Target.of(task)));
+        if (finished.isEmpty()) {
+            return Map.of();
+        }
+
+        List<UUID> targetIds = finished.stream().map(Target::id).toList();
+        // Снимки есть, а отметки нет — задание уже пересчитано после изменения, отметка ставится заново
+        Set<UUID> snapshotted = gradeSnapshotRepository.findSnapshotTargetIds(targetIds);
+        markProcessed(finished.stream().filter(target -> snapshotted.contains(target.id())).toList(), now);
+        Map<UUID, P2PParam> p2pParams = p2pParamRepository.findAllById(targetIds).stream()
+                .collect(Collectors.toMap(P2PParam::getId, Function.identity()));
+
+        Map<UUID, List<UUID>> result = new LinkedHashMap<>();
+        finished.stream()
+                .filter(target -> !snapshotted.contains(target.id()))
+                .filter(target -> isP2pFinished(target, p2pParams.get(target.id()), now))
+                .limit(batchSize)
+                .forEach(target -> result.computeIfAbsent(target.channelId(), key -> new ArrayList<>()).add(target.id()));
+        return result;
+    }
+
+    private void createSnapshots(UUID channelId, List<UUID> targetIds, Instant now) {
+        List<User> students = channelGradeLoader.loadStudents(channelId);
+        if (students.isEmpty()) {
+            gradeSnapshotTargetRepository.saveAll(targetIds.stream()
+                    .map(targetId -> processed(targetId, channelId, now))
+                    .toList());
+            return;
+        }
+        ChannelGradeData data = channelGradeLoader.load(channelId, students);
+
+        Map<UUID, Target> targets = new LinkedHashMap<>();
+        data.getTaskPosts().forEach(post -> targets.put(post.getId(), Target.of(post)));
+        data.getTasks().forEach(task -> targets.put(task.getId(), Target.of(task)));
+
+        List<GradeSnapshot> snapshots = new ArrayList<>();
+        for (UUID targetId : targetIds) {
+            Target target = targets.get(targetId);
+            if (target == null) {
+                continue;
+            }
+            for (User student : students) {
+                snapshots.add(GradeSnapshot.builder()
+                        .channelId(channelId)
+                        .targetId(targetId)
+                        .targetType(target.type())
+                        .userId(student.getId())
+                        .value(settledGrade(data, target, student.getId()))
+                        .computedAt(now)
+                        .build());
+            }
+        }
+        gradeSnapshotRepository.saveAll(snapshots);
+        markProcessed(targetIds.stream().map(targets::get).filter(Objects::nonNull).toList(), now);
+        log.info("Созданы снимки оценок предмета {}: {} заданий, {} студентов", channelId, targetIds.size(), students.size());
+    }
+
+    private void markProcessed(List<Target> targets, Instant now) {
+        if (!targets.isEmpty()) {
+            gradeSnapshotTargetRepository.saveAll(targets.stream()
+                    .map(target -> processed(target.id(), target.channelId(), now))
+                    .toList());
+        }
+    }
+
+    private GradeSnapshotTarget processed(UUID targetId, UUID channelId, Instant now) {
+        return GradeSnapshotTarget.builder()
+                .targetId(targetId)
+                .channelId(channelId)
+                .snapshottedAt(now)
+                .build();
+    }
+
+    /**
+     * Оценка для снимка или null, если она еще меняется со временем из-за штрафа за дедлайн
+     */
+    private Double settledGrade(ChannelGradeData data, Target target, Long userId) {
+        if (target.post() != null) {
+            double grade = data.postGrade(target.post(), userId);
+            return data.isPostGradeSettled(target.post(), userId, grade) ? grade : null;
+        }
+        double grade = data.taskGrade(target.task(), userId);
+        return data.isTaskGradeSettled(target.task(), userId, grade) ? grade : null;
+    }
+
+    private Target resolveTarget(UUID targetId, GradeTargetType type) {
+        if (type == GradeTargetType.TASK) {
+            return taskRepository.findById(targetId).map(Target::of).orElse(null);
+        }
+        return postRepository.findById(targetId).map(Target::of).orElse(null);
+    }
+
+    private boolean isFinished(Target target, Instant now) {
+        boolean deadlinePassed;
+        if (target.post() != null) {
+            deadlinePassed = target.post().getDeadline() != null
+                    && target.post().getDeadline().toInstant(ZoneOffset.UTC).isBefore(now);
+        } else {
+            deadlinePassed = !target.task().getTeams().isEmpty() && target.task().getTeams().stream()
+                    .allMatch(team -> team.getDeadline() != null && team.getDeadline().isBefore(now));
+        }
+        return deadlinePassed && isP2pFinished(target, p2pParamRepository.findById(target.id()).orElse(null), now);
+    }
+
+    private boolean isP2pFinished(Target target, P2PParam param, Instant now) {
+        if (!target.p2pEnabled() || param == null) {
+            return true;
+        }
+        return param.getP2pDeadline() != null && param.getP2pDeadline().isBefore(now);
+    }
+
+    private record Target(UUID id, UUID channelId, GradeTargetType type, Post post, Task task, boolean p2pEnabled) {
+
+        static Target of(Post post) {
+            return new Target(post.getId(), post.getChannelId(), GradeTargetType.POST_TASK, post, null,
+                    Boolean.TRUE.equals(post.getIsP2pEnabled()));
+        }
+
+        static Target of(Task task) {
+            return new Target(task.getId(), task.getChannel().getId(), GradeTargetType.TASK, null, task,
+                    Boolean.TRUE.equals(task.getIsP2pEnabled()));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.hits.car_school_automatization.service;
+
+import ru.hits.car_school_automatization.enums.Role;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Неизменяемые данные проверенного JWT текущего запроса. Создается {@link JwtTokenProvider#parse}
+ * один раз в JwtAuthFilter, после этого подпись токена в рамках запроса повторно не проверяется.
+ *
+ * @param issuedAt время выдачи токена, по нему проверяется отзыв, см. {@link TokenRevocationRegistry}
+ * @param token исходный токен, по нему сервисы сопоставляют заголовок Authorization с принципалом
+ */
+public record JwtPrincipal(Long userId, List<Role> roles, Instant expiresAt, Instant issuedAt, String token) {
+
+    public JwtPrincipal {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        // токен не попадает в логи
+        return "JwtPrincipal[userId=" + userId + ", roles=" + roles + ", expiresAt=" + expiresAt + ", issuedAt=" + issuedAt + "]";
+    }
+}
@@ -2,19 +2,27 @@ package ru.hits.car_school_automatization.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
 import ru.hits.car_school_automatization.exception.BadRequestException;
 import ru.hits.car_school_automatization.exception.NotFoundException;
 import ru.hits.car_school_automatization.repository.UserRepository;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Провайдер для работы с JWT токенами
@@ -22,17 +30,38 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    /**
+     * Время выдачи с точностью до миллисекунды: стандартный iat хранит секунды, и токен,
+     * выданный в ту же секунду сразу после отзыва, иначе отклонялся бы
+     */
+    private static final String ISSUED_AT_MILLIS = "iat_ms";
+
     private final SecretKey secretKey;
+    private final JwtParser parser;
     private final long validityInMilliseconds;
     private final UserRepository userRepository;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final boolean stateless;
 
     public JwtTokenProvider(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.expiration}") long validityInMilliseconds,
-            UserRepository userRepository) {
+            @Value("${jwt.stateless:false}") boolean stateless,
+            UserRepository userRepository,
+            TokenRevocationRegistry revocationRegistry) {
         this.secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
         this.validityInMilliseconds = validityInMilliseconds;
+        this.stateless = stateless;
         this.userRepository = userRepository;
+        this.revocationRegistry = revocationRegistry;
+    }
+
+    /**
+     * Режим без обращения к БД: роли берутся из claim role, отзыв проверяется по времени выдачи токена
+     */
+    public boolean isStateless() {
+        return stateless;
     }
 
     /**
@@ -47,6 +76,7 @@ public class JwtTokenProvider {
         return Jwts.builder()
                 .subject(userId.toString())
                 .claim("role", user.getRole())
+                .claim(ISSUED_AT_MILLIS, now.getTime())
                 .issuedAt(now)
                 .expiration(validity)
                 .signWith(secretKey)
@@ -54,29 +84,62 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Валидация JWT токена
+     * Проверка подписи и срока действия с разбором claims за один проход.
+     * В режиме без БД также отклоняются токены, отозванные через {@link TokenRevocationRegistry}.
+     *
+     * @return пусто, если токен невалиден, истек или отозван
      */
-    public boolean validateToken(String token) {
+    public Optional<JwtPrincipal> parse(String token) {
+        JwtPrincipal principal;
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Number issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Number.class);
+            principal = new JwtPrincipal(
+                    Long.parseLong(claims.getSubject()),
+                    parseRoles(claims.get("role")),
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                    issuedAtMillis != null
+                            ? Instant.ofEpochMilli(issuedAtMillis.longValue())
+                            : claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
+        if (stateless && revocationRegistry.isRevoked(principal.userId(), principal.issuedAt())) {
+            return Optional.empty();
+        }
+        return Optional.of(principal);
+    }
+
+    /**
+     * Принципал, проверенный JwtAuthFilter в текущем запросе
+     */
+    public Optional<JwtPrincipal> currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getDetails() instanceof JwtPrincipal principal
+                && !principal.isExpired(Instant.now())) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Валидация JWT токена
+     */
+    public boolean validateToken(String token) {
+        return verified(token).isPresent();
     }
 
     /**
      * Извлечение ID пользователя из токена
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Optional<JwtPrincipal> current = currentPrincipal(token);
+        if (current.isPresent()) {
+            return current.get().userId();
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
 
         return Long.parseLong(claims.getSubject());
     }
@@ -91,11 +154,40 @@ public class JwtTokenProvider {
         return authHeader.substring(7);
     }
 
+    /**
+     * ID пользователя из заголовка Authorization
+     */
     public Long extractUserIdFromHeader(String authHeader) {
         String token = extractTokenFromHeader(authHeader);
-        if (!validateToken(token)) {
-            throw new BadRequestException("Невалидный или истекший токен");
+        return verified(token)
+                .map(JwtPrincipal::userId)
+                .orElseThrow(() -> new BadRequestException("Невалидный или истекший токен"));
+    }
+
+    /**
+     * Токен, уже проверенный фильтром в текущем запросе, повторно не разбирается:
+     * сервисы по-прежнему передают заголовок, но HMAC считается один раз на запрос
+     */
+    private Optional<JwtPrincipal> verified(String token) {
+        Optional<JwtPrincipal> current = currentPrincipal(token);
+        return current.isPresent() ? current : parse(token);
+    }
+
+    private Optional<JwtPrincipal> currentPrincipal(String token) {
+        return currentPrincipal().filter(principal -> principal.token().equals(token));
+    }
+
+    private List<Role> parseRoles(Object claim) {
+        List<Role> roles = new ArrayList<>();
+        if (claim instanceof List<?> values) {
+            for (Object value : values) {
+                try {
+                    roles.add(Role.valueOf(String.valueOf(value)));
+                } catch (IllegalArgumentException e) {
+                    // неизвестная роль из старого токена игнорируется
+                }
+            }
         }
-        return getUserIdFromToken(token);
+        return roles;
     }
 }
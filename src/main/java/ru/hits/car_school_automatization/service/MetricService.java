@@ -34,12 +34,15 @@ public class MetricService {
     private final UserRepository userRepository;
     private final MetricMapper metricMapper;
     private final JwtTokenProvider tokenProvider;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
 
     public MetricDto createMetric(CreateMetricDto dto, String authHeader) {
         RoleUtils.requireTeacher(getUserFromHeader(authHeader), "Только преподаватель может управлять критериями");
         validateTarget(dto.getPostId(), dto.getTaskId());
         validateRange(dto.getMinValue(), dto.getMaxValue());
 
+        UUID channelId;
         if (dto.getPostId() != null) {
             Post post = postRepository.findById(dto.getPostId())
                     .orElseThrow(() -> new NotFoundException("Пост не найден"));
@@ -54,11 +57,11 @@ public class MetricService {
                     throw new BadRequestException("Для контрольной уже существует критерий");
                 }
             }
-        }
-
-        if (dto.getTaskId() != null) {
-            taskRepository.findById(dto.getTaskId())
+            channelId = post.getChannelId();
+        } else {
+            Task task = taskRepository.findById(dto.getTaskId())
                     .orElseThrow(() -> new NotFoundException("Задание не найдено"));
+            channelId = task.getChannel().getId();
         }
 
         Metric metric = Metric.builder()
@@ -71,7 +74,11 @@ public class MetricService {
                 .taskId(dto.getTaskId())
                 .build();
 
-        return metricMapper.toDto(metricRepository.save(metric));
+        Metric saved = metricRepository.save(metric);
+        UUID targetId = dto.getPostId() != null ? dto.getPostId() : dto.getTaskId();
+        gradeCache.invalidateTarget(channelId, targetId);
+        gradeSnapshotService.markTargetStale(targetId);
+        return metricMapper.toDto(saved);
     }
 
     public void deleteMetric(UUID metricId, String authHeader) {
@@ -79,6 +86,7 @@ public class MetricService {
         Metric metric = metricRepository.findById(metricId)
                 .orElseThrow(() -> new NotFoundException("Критерий не найден"));
         metricRepository.delete(metric);
+        invalidateTarget(metric);
     }
 
     public List<MetricDto> getPostMetrics(UUID postId, String authHeader) {
@@ -110,6 +118,17 @@ public class MetricService {
     }
 
 
+    private void invalidateTarget(Metric metric) {
+        gradeSnapshotService.markTargetStale(metric.getPostId() != null ? metric.getPostId() : metric.getTaskId());
+        if (metric.getPostId() != null) {
+            postRepository.findById(metric.getPostId())
+                    .ifPresent(post -> gradeCache.invalidateTarget(post.getChannelId(), post.getId()));
+        } else if (metric.getTaskId() != null) {
+            taskRepository.findById(metric.getTaskId())
+                    .ifPresent(task -> gradeCache.invalidateTarget(task.getChannel().getId(), task.getId()));
+        }
+    }
+
     private void validateTarget(UUID postId, UUID taskId) {
         if ((postId == null && taskId == null) || (postId != null && taskId != null)) {
             throw new BadRequestException("Укажите либо postId, либо taskId");
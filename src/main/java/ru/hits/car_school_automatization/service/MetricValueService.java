@@ -1,5 +1,6 @@
 package ru.hits.car_school_automatization.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -8,6 +9,7 @@ import ru.hits.car_school_automatization.entity.*;
 import ru.hits.car_school_automatization.exception.BadRequestException;
 import ru.hits.car_school_automatization.exception.ForbiddenException;
 import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.jfr.MetricUpsertEvent;
 import ru.hits.car_school_automatization.mapper.MetricMapper;
 import ru.hits.car_school_automatization.mapper.MetricValueMapper;
 import ru.hits.car_school_automatization.repository.*;
@@ -35,6 +37,8 @@ public class MetricValueService {
     private final P2PPairPersonalRepository p2pPairPersonalRepository;
     private final P2PPairTeamRepository p2pPairTeamRepository;
     private final TeamP2PReviewGradeRepository teamP2PReviewGradeRepository;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
 
     public List<MetricWithValuesDto> getPostMetricsWithValues(UUID postId, Long userId, String authHeader) {
         User requester = getUserFromHeader(authHeader);
@@ -241,6 +245,7 @@ public class MetricValueService {
         return toMetricsWithValues(metrics, requester, targetUserId, metricsVisibleToStudents, valuesVisibleToStudents);
     }
 
+    @Timed("metric.values")
     public void setMetricValue(SetMetricValueDto dto, String authHeader) {
         User requester = getUserFromHeader(authHeader);
         Metric metric = metricRepository.findById(dto.getMetricId())
@@ -278,6 +283,7 @@ public class MetricValueService {
         upsertMetricValue(metric.getId(), dto.getUserId(), dto.getValue(), requester.getId());
     }
 
+    @Timed("metric.values")
     public void setTeamMetricValue(SetTeamMetricValueDto dto, String authHeader) {
         User requester = getUserFromHeader(authHeader);
         Metric metric = metricRepository.findById(dto.getMetricId())
@@ -379,6 +385,9 @@ public class MetricValueService {
     }
 
     private void upsertMetricValue(UUID metricId, Long userId, Double value, Long editorId) {
+        MetricUpsertEvent event = new MetricUpsertEvent();
+        event.begin();
+
         User editor = userRepository.findById(editorId).orElse(null);
         boolean isEditorTeacher = editor != null && RoleUtils.isTeacherOrManager(editor);
 
@@ -395,7 +404,8 @@ public class MetricValueService {
             }
         }
 
-        if (metricValue == null) {
+        boolean created = metricValue == null;
+        if (created) {
             metricValue = MetricValue.builder()
                     .metricId(metricId)
                     .userId(userId)
@@ -414,6 +424,8 @@ public class MetricValueService {
                 .build();
 
         metricChangeRepository.save(change);
+        invalidateGrade(metricId, userId);
+        event.commit(metricId, userId, created);
     }
 
     public void removeOverride(UUID metricId, Long studentId, String authHeader) {
@@ -450,6 +462,26 @@ public class MetricValueService {
             metricChangeRepository.deleteAll(changes);
             metricValueRepository.delete(metricValue);
         }
+        invalidateGrade(metricId, studentId);
+    }
+
+    private void invalidateGrade(UUID metricId, Long userId) {
+        Metric metric = metricRepository.findById(metricId).orElse(null);
+        if (metric == null) {
+            return;
+        }
+
+        UUID targetId = metric.getPostId() != null ? metric.getPostId() : metric.getTaskId();
+        UUID channelId = metric.getPostId() != null
+                ? postRepository.findById(metric.getPostId()).map(Post::getChannelId).orElse(null)
+                : taskRepository.findById(metric.getTaskId()).map(task -> task.getChannel().getId()).orElse(null);
+
+        if (targetId != null && channelId != null) {
+            gradeCache.invalidateCell(channelId, targetId, userId);
+        }
+        if (targetId != null) {
+            gradeSnapshotService.markStale(targetId, userId);
+        }
     }
 
     private List<MetricWithValuesDto> toMetricsWithValues(
@@ -0,0 +1,158 @@
+package ru.hits.car_school_automatization.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hits.car_school_automatization.repository.ChannelRepository;
+import ru.hits.car_school_automatization.repository.PostRepository;
+import ru.hits.car_school_automatization.repository.SolutionRepository;
+import ru.hits.car_school_automatization.repository.TaskRepository;
+import ru.hits.car_school_automatization.repository.TaskSolutionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Сборщик файлов, на которые не ссылается ни одна сущность: остаются после удаления постов,
+ * заданий и предметов, а также после транзакций, откатившихся уже после сохранения файла.
+ * <p>
+ * Сначала собираются файлы старше grace-period, затем из них потоком вычеркиваются все ссылки
+ * из базы. Порядок важен: ссылка, появившаяся после сканирования, указывает либо на свежий файл,
+ * либо на файл, который и так уже был вычеркнут, поэтому под удаление она не попадает.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrphanFileCollector {
+
+    /**
+     * @param scanned кандидаты старше grace-period в последнем проходе
+     * @param orphans файлы без ссылок в последнем проходе, в том числе в режиме dry-run
+     */
+    public record Stats(long passes, long scanned, long orphans, long deleted, long bytesFreed, long errors) {
+    }
+
+    /**
+     * Итог одного прохода
+     */
+    public record Result(int scanned, int orphans, int deleted, long bytesFreed, boolean dryRun) {
+    }
+
+    private static final String FILE_URL_PREFIX = "/file/";
+
+    private final FileStorageService fileStorageService;
+    private final PostRepository postRepository;
+    private final SolutionRepository solutionRepository;
+    private final TaskRepository taskRepository;
+    private final TaskSolutionRepository taskSolutionRepository;
+    private final ChannelRepository channelRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${file.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.gc.dry-run:true}")
+    private boolean dryRun;
+
+    @Value("${file.gc.grace-period:24h}")
+    private Duration gracePeriod;
+
+    @Value("${file.gc.max-deletes:1000}")
+    private int maxDeletes;
+
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong lastScanned = new AtomicLong();
+    private final AtomicLong lastOrphans = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong bytesFreed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Один проход сборщика. В режиме dry-run файлы без ссылок только попадают в лог и метрики.
+     */
+    @Timed("file.gc")
+    public Result collect() {
+        if (!enabled) {
+            return new Result(0, 0, 0, 0, dryRun);
+        }
+        Instant modifiedBefore = Instant.now().minus(gracePeriod);
+        Map<String, Long> candidates = fileStorageService.listFiles(modifiedBefore);
+        int scanned = candidates.size();
+
+        if (!candidates.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                removeReferenced(candidates, postRepository.streamFileUrls());
+                removeReferenced(candidates, solutionRepository.streamFileUrls());
+                removeReferenced(candidates, taskRepository.streamFileUrls());
+                removeReferenced(candidates, taskSolutionRepository.streamFileUrls());
+                removeReferenced(candidates, channelRepository.streamImages());
+            });
+        }
+
+        int removed = 0;
+        long freed = 0;
+        for (Map.Entry<String, Long> orphan : candidates.entrySet()) {
+            if (dryRun) {
+                log.info("Файл без ссылок (dry-run): {}, {} байт", orphan.getKey(), orphan.getValue());
+                continue;
+            }
+            if (removed >= maxDeletes) {
+                break;
+            }
+            try {
+                long size = fileStorageService.deleteOrphan(orphan.getKey(), modifiedBefore, this::isReferenced);
+                if (size >= 0) {
+                    removed++;
+                    freed += size;
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                log.error("Ошибка при удалении файла без ссылок {}", orphan.getKey(), e);
+            }
+        }
+
+        passes.incrementAndGet();
+        lastScanned.set(scanned);
+        lastOrphans.set(candidates.size());
+        deleted.addAndGet(removed);
+        bytesFreed.addAndGet(freed);
+
+        if (!candidates.isEmpty()) {
+            log.info("Сборка файлов без ссылок: проверено {}, без ссылок {}, удалено {} ({} байт){}",
+                    scanned, candidates.size(), removed, freed, dryRun ? ", dry-run" : "");
+        }
+        return new Result(scanned, candidates.size(), removed, freed, dryRun);
+    }
+
+    public Stats stats() {
+        return new Stats(passes.get(), lastScanned.get(), lastOrphans.get(), deleted.get(), bytesFreed.get(), errors.get());
+    }
+
+    /**
+     * Повторная проверка одного файла перед удалением: ссылка могла появиться после сканирования
+     */
+    private boolean isReferenced(String filename) {
+        return postRepository.existsFileReference(filename)
+                || solutionRepository.existsFileReference(filename)
+                || taskRepository.existsFileReference(filename)
+                || taskSolutionRepository.existsFileReference(filename)
+                || channelRepository.existsImageReference(filename);
+    }
+
+    private void removeReferenced(Map<String, Long> candidates, Stream<String> fileUrls) {
+        try (fileUrls) {
+            fileUrls.forEach(url -> {
+                int index = url.lastIndexOf(FILE_URL_PREFIX);
+                if (index >= 0) {
+                    candidates.remove(url.substring(index + FILE_URL_PREFIX.length()));
+                }
+            });
+        }
+    }
+}
@@ -42,7 +42,12 @@ public class P2PService {
     private final JwtTokenProvider tokenProvider;
     private final UserRepository userRepository;
 
-    public void processExpiredP2PPairs() {
+    /**
+     * Помечает просроченные P2P пары и начисляет штраф проверяющим
+     *
+     * @return число просроченных пар
+     */
+    public int processExpiredP2PPairs() {
         Instant now = Instant.now();
 
         List<P2PPairPersonal> expiredPersonal = p2pPairPersonalRepository.findExpiredPendingPairs(now);
@@ -73,6 +78,7 @@ public class P2PService {
             }
             log.info("P2P Team {} expired, penalty applied to reviewer team {}", pair.getId(), pair.getReviewerTeamId());
         }
+        return expiredPersonal.size() + expiredTeam.size();
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,125 @@
+package ru.hits.car_school_automatization.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.hits.car_school_automatization.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Отдельный ограниченный пул для BCrypt: вход, создание пользователя и смена пароля.
+ * <p>
+ * Хеширование занимает десятки миллисекунд CPU, поэтому при массовом входе в начале занятия
+ * оно выполняется не более чем в threads потоках, а потоки Tomcat только ждут результат.
+ * Когда очередь заполнена, запрос сразу отклоняется с 429 вместо того, чтобы занимать
+ * поток запроса и вытеснять остальные API.
+ * <p>
+ * Очередь — небольшое кратное числа потоков, а ожидание ограничено секундой: так в ожидании хеша
+ * одновременно находится лишь малая часть потоков Tomcat (maxThreads = 200).
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    public record Stats(int queueDepth, int active, long completed, long rejected,
+                        double averageHashMillis, double maxHashMillis, double averageWaitMillis) {
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public PasswordHashingExecutor(@Value("${security.hashing.threads:0}") int threads,
+                                   @Value("${security.hashing.queue-per-thread:4}") int queuePerThread,
+                                   @Value("${security.hashing.timeout:1s}") Duration timeout) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * Math.max(1, queuePerThread)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Выполняет хеширование в пуле и ждет результат в текущем потоке
+     *
+     * @throws TooManyRequestsException если очередь пула заполнена или результат не получен за timeout
+     */
+    public <T> T execute(Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.addAndGet(startedAt - submittedAt);
+                try {
+                    return hashing.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashNanos.addAndGet(elapsed);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new TooManyRequestsException("Слишком много одновременных запросов, повторите попытку позже");
+        }
+
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new TooManyRequestsException("Слишком много одновременных запросов, повторите попытку позже");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Хеширование пароля прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public Stats stats() {
+        long done = completed.get();
+        return new Stats(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                done,
+                rejected.get(),
+                done == 0 ? 0.0 : hashNanos.get() / 1e6 / done,
+                maxHashNanos.get() / 1e6,
+                done == 0 ? 0.0 : waitNanos.get() / 1e6 / done);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
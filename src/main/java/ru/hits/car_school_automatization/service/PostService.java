@@ -41,6 +41,8 @@ public class PostService {
     private final JwtTokenProvider tokenProvider;
     private final TeacherInfoResolver teacherInfoResolver;
     private final P2PParamRepository p2pParamRepository;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
 
     /**
      * Создание нового поста
@@ -139,6 +141,8 @@ public class PostService {
                     toUuidSet(createPostDto.getControlTaskIds()));
             log.info("Список заданий для контрольной с id = {} создан", savedPost.getId());
         }
+        // Новый пост входит в оценку за предмет
+        gradeCache.invalidateChannelAggregates(savedPost.getChannelId());
         log.info("Пост успешно создан с id: {}", savedPost.getId());
     }
 
@@ -160,6 +164,8 @@ public class PostService {
             p2pParamRepository.findById(post.getId()).ifPresent(p2pParamRepository::delete);
         }
         postRepository.delete(post);
+        gradeCache.invalidateTarget(post.getChannelId(), post.getId());
+        gradeSnapshotService.deleteTarget(post.getId());
         log.info("Пост с id {} успешно удален", postId);
     }
 
@@ -383,6 +389,11 @@ public class PostService {
         }
 
         postRepository.save(post);
+        if (updatePostDto.getIsP2pEnabled() != null) {
+            // Дедлайн P2P определяет, завершено ли задание и можно ли хранить оценку в снимке
+            gradeCache.invalidateTarget(post.getChannelId(), postId);
+            gradeSnapshotService.markTargetStale(postId);
+        }
         log.info("Видимость метрик поста {} успешно обновлена", postId);
     }
 
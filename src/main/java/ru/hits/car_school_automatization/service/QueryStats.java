@@ -0,0 +1,93 @@
+package ru.hits.car_school_automatization.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.hits.car_school_automatization.util.QueryCounter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Число SQL-запросов и загруженных сущностей на HTTP-запрос по методам контроллеров.
+ * Запрос, превысивший порог, попадает в лог — так видны N+1 при росте данных.
+ * Те же значения публикуются распределениями hibernate.request.statements/entities с тегом endpoint.
+ */
+@Slf4j
+@Component
+public class QueryStats {
+
+    public record Stats(long requests, long statements, long maxStatements, long entities, long maxEntities) {
+
+        public double statementsPerRequest() {
+            return requests == 0 ? 0.0 : (double) statements / requests;
+        }
+    }
+
+    private static final class Endpoint {
+        private final DistributionSummary statementsSummary;
+        private final DistributionSummary entitiesSummary;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private final LongAdder entities = new LongAdder();
+        private final AtomicLong maxEntities = new AtomicLong();
+
+        private Endpoint(String endpoint, MeterRegistry meterRegistry) {
+            this.statementsSummary = DistributionSummary.builder("hibernate.request.statements")
+                    .description("SQL-запросов за HTTP-запрос")
+                    .tag("endpoint", endpoint)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.entitiesSummary = DistributionSummary.builder("hibernate.request.entities")
+                    .description("Загруженных сущностей за HTTP-запрос")
+                    .tag("endpoint", endpoint)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long warnThreshold;
+
+    public QueryStats(MeterRegistry meterRegistry, @Value("${query-count.warn-threshold:50}") long warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    /**
+     * @param endpoint метод контроллера в виде Controller#method
+     */
+    public void record(String endpoint, QueryCounter.Counts counts) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint(key, meterRegistry));
+        stats.requests.increment();
+        stats.statements.add(counts.statements());
+        stats.maxStatements.accumulateAndGet(counts.statements(), Math::max);
+        stats.entities.add(counts.entities());
+        stats.maxEntities.accumulateAndGet(counts.entities(), Math::max);
+        stats.statementsSummary.record(counts.statements());
+        stats.entitiesSummary.record(counts.entities());
+
+        if (warnThreshold > 0 && counts.statements() > warnThreshold) {
+            log.warn("{}: {} SQL-запросов и {} загруженных сущностей за запрос",
+                    endpoint, counts.statements(), counts.entities());
+        }
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> result = new TreeMap<>();
+        endpoints.forEach((endpoint, stats) -> result.put(endpoint, new Stats(
+                stats.requests.sum(),
+                stats.statements.sum(),
+                stats.maxStatements.get(),
+                stats.entities.sum(),
+                stats.maxEntities.get())));
+        return result;
+    }
+}
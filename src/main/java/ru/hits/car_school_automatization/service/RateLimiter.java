@@ -0,0 +1,129 @@
+package ru.hits.car_school_automatization.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket по (группа маршрутов, пользователь) без блокировок.
+ * <p>
+ * Корзина хранится одним AtomicLong — теоретическим временем следующего запроса (алгоритм GCRA):
+ * каждый запрос сдвигает его на интервал пополнения, запрос разрешен, пока сдвиг не превышает
+ * емкость корзины. Проверка — один CAS без обращения к БД. Корзины, полностью пополнившиеся,
+ * ничем не отличаются от новых и периодически удаляются.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    public record Limit(int capacity, double refillPerSecond) {
+
+        long intervalNanos() {
+            return (long) (1_000_000_000L / refillPerSecond);
+        }
+
+        long burstNanos() {
+            return intervalNanos() * capacity;
+        }
+    }
+
+    private record BucketKey(String group, Long userId) {
+    }
+
+    private final Environment environment;
+    private final boolean enabled;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final Map<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiter(Environment environment,
+                       MeterRegistry meterRegistry,
+                       @Value("${rate-limit.enabled:true}") boolean enabled,
+                       @Value("${rate-limit.default.capacity:20}") int defaultCapacity,
+                       @Value("${rate-limit.default.refill-per-second:5}") double defaultRefillPerSecond) {
+        this.environment = environment;
+        this.enabled = enabled;
+        this.defaultLimit = new Limit(defaultCapacity, defaultRefillPerSecond);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("rate_limit.buckets", buckets, Map::size)
+                .description("Число корзин ограничения запросов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Забирает токен из корзины пользователя
+     *
+     * @return false, если корзина пуста и запрос нужно отклонить
+     */
+    public boolean tryAcquire(String group, Long userId) {
+        if (!enabled) {
+            return true;
+        }
+        Limit limit = limitOf(group);
+        if (limit.capacity() <= 0) {
+            return true;
+        }
+        AtomicLong bucket = buckets.computeIfAbsent(new BucketKey(group, userId), key -> new AtomicLong(Long.MIN_VALUE));
+        long interval = limit.intervalNanos();
+        long burst = limit.burstNanos();
+
+        while (true) {
+            long now = System.nanoTime();
+            long theoreticalArrival = bucket.get();
+            long base = theoreticalArrival == Long.MIN_VALUE || theoreticalArrival - now < 0 ? now : theoreticalArrival;
+            long next = base + interval;
+            if (next - now > burst) {
+                rejections.computeIfAbsent(group, key -> Counter.builder("rate_limit.rejections")
+                        .description("Запросы, отклоненные ограничением частоты")
+                        .tag("group", key)
+                        .register(meterRegistry)).increment();
+                return false;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Число отклоненных запросов по группам
+     */
+    public Map<String, Long> rejections() {
+        Map<String, Long> result = new ConcurrentHashMap<>();
+        rejections.forEach((group, counter) -> result.put(group, (long) counter.count()));
+        return result;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Удаляет полностью пополнившиеся корзины, чтобы число корзин не росло с числом пользователей
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() == Long.MIN_VALUE || bucket.get() - now < 0);
+        log.debug("Удалено {} корзин ограничения запросов", before - buckets.size());
+    }
+
+    Limit limitOf(String group) {
+        return limits.computeIfAbsent(group, key -> new Limit(
+                environment.getProperty("rate-limit.groups." + key + ".capacity", Integer.class, defaultLimit.capacity()),
+                environment.getProperty("rate-limit.groups." + key + ".refill-per-second", Double.class,
+                        defaultLimit.refillPerSecond())));
+    }
+}
@@ -0,0 +1,225 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hits.car_school_automatization.entity.Post;
+import ru.hits.car_school_automatization.entity.Solution;
+import ru.hits.car_school_automatization.entity.Task;
+import ru.hits.car_school_automatization.entity.TaskDocument;
+import ru.hits.car_school_automatization.entity.TaskSolution;
+import ru.hits.car_school_automatization.entity.Team;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.exception.ForbiddenException;
+import ru.hits.car_school_automatization.exception.NotFoundException;
+import ru.hits.car_school_automatization.repository.PostRepository;
+import ru.hits.car_school_automatization.repository.SolutionRepository;
+import ru.hits.car_school_automatization.repository.TaskRepository;
+import ru.hits.car_school_automatization.repository.TaskSolutionRepository;
+import ru.hits.car_school_automatization.repository.TeamRepository;
+import ru.hits.car_school_automatization.repository.UserRepository;
+import ru.hits.car_school_automatization.util.RoleUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Выгрузка файлов решений задания или поста одним ZIP-архивом.
+ * <p>
+ * Состав архива (пути и имена файлов в хранилище) собирается в транзакции запроса, затем архив
+ * пишется в ответ на лету: файлы читаются по одному, временных файлов нет, память не зависит
+ * от суммарного размера.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SolutionArchiveService {
+
+    public static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    private static final String MISSING_FILES_ENTRY = "_missing.txt";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param path       путь внутри архива
+     * @param storedName имя файла в хранилище
+     */
+    public record Entry(String path, String storedName) {
+    }
+
+    private final TaskRepository taskRepository;
+    private final PostRepository postRepository;
+    private final TaskSolutionRepository taskSolutionRepository;
+    private final SolutionRepository solutionRepository;
+    private final TeamRepository teamRepository;
+    private final UserRepository userRepository;
+    private final ChannelMembershipService channelMembershipService;
+    private final FileStorageService fileStorageService;
+    private final JwtTokenProvider tokenProvider;
+
+    /**
+     * Решения командного задания: команда/студент/файл
+     *
+     * @param selectedOnly только выбранные командами решения
+     * @param solutionIds  только указанные решения, если список не пуст
+     */
+    @Transactional(readOnly = true)
+    public List<Entry> planTaskArchive(UUID taskId, boolean selectedOnly, Collection<UUID> solutionIds, String authHeader) {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new NotFoundException("Задание с id " + taskId + " не найдено"));
+        checkAccess(task.getChannel().getId(), authHeader);
+
+        List<TaskSolution> solutions = taskSolutionRepository.findByTaskId(taskId).stream()
+                .filter(solution -> !selectedOnly || Boolean.TRUE.equals(solution.getIsSelected()))
+                .filter(solution -> solutionIds == null || solutionIds.isEmpty() || solutionIds.contains(solution.getId()))
+                .sorted(Comparator.comparing(TaskSolution::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        Map<UUID, Team> teams = teamRepository.findAllById(solutions.stream().map(TaskSolution::getTeamId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Team::getId, Function.identity()));
+        Map<Long, User> students = loadStudents(solutions.stream().map(TaskSolution::getStudentId).toList());
+
+        List<Entry> entries = new ArrayList<>();
+        Set<String> usedPaths = new HashSet<>();
+        for (TaskSolution solution : solutions) {
+            Team team = teams.get(solution.getTeamId());
+            String folder = segment(team != null ? team.getName() : String.valueOf(solution.getTeamId()))
+                    + "/" + studentFolder(students.get(solution.getStudentId()), solution.getStudentId());
+            for (TaskDocument document : solution.getDocuments()) {
+                addEntry(entries, usedPaths, folder, document.getFileName(), document.getFileUrl());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Решения поста-задания: студент/файл
+     *
+     * @param solutionIds только указанные решения, если список не пуст
+     */
+    @Transactional(readOnly = true)
+    public List<Entry> planPostArchive(UUID postId, Collection<UUID> solutionIds, String authHeader) {
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new NotFoundException("Задание с id " + postId + " не найдено"));
+        checkAccess(post.getChannelId(), authHeader);
+
+        List<Solution> solutions = solutionRepository.findTaskSolutions(postId).stream()
+                .filter(solution -> solution.getFileUrl() != null)
+                .filter(solution -> solutionIds == null || solutionIds.isEmpty() || solutionIds.contains(solution.getId()))
+                .toList();
+        Map<Long, User> students = loadStudents(solutions.stream().map(Solution::getStudentId).toList());
+
+        List<Entry> entries = new ArrayList<>();
+        Set<String> usedPaths = new HashSet<>();
+        for (Solution solution : solutions) {
+            String folder = studentFolder(students.get(solution.getStudentId()), solution.getStudentId());
+            addEntry(entries, usedPaths, folder, solution.getFileName(), solution.getFileUrl());
+        }
+        return entries;
+    }
+
+    /**
+     * Пишет архив в поток. Файлы, которых нет в хранилище, перечисляются в _missing.txt.
+     */
+    public void write(List<Entry> entries, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8);
+        // Решения в основном PDF, архивы и изображения — сильное сжатие почти ничего не дает
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        List<String> missing = new ArrayList<>();
+        for (Entry entry : entries) {
+            Path file = fileStorageService.loadAsResource(entry.storedName());
+            if (file == null) {
+                missing.add(entry.path());
+                continue;
+            }
+            ZipEntry zipEntry = new ZipEntry(entry.path());
+            zipEntry.setLastModifiedTime(Files.getLastModifiedTime(file));
+            zip.putNextEntry(zipEntry);
+            Files.copy(file, zip);
+            zip.closeEntry();
+        }
+
+        if (!missing.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(MISSING_FILES_ENTRY));
+            zip.write(String.join("\n", missing).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+
+        log.info("Выгружен архив решений: {} файлов, не найдено {}", entries.size() - missing.size(), missing.size());
+    }
+
+    private void checkAccess(UUID channelId, String authHeader) {
+        Long userId = tokenProvider.extractUserIdFromHeader(authHeader);
+        User requester = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        RoleUtils.requireTeacher(requester, "Скачивать решения архивом может только преподаватель");
+
+        if (!channelMembershipService.isMember(channelId, requester.getId())) {
+            throw new ForbiddenException("У пользователя нет доступа к этому предмету");
+        }
+    }
+
+    private Map<Long, User> loadStudents(List<Long> studentIds) {
+        return userRepository.findAllById(studentIds.stream().distinct().toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private void addEntry(List<Entry> entries, Set<String> usedPaths, String folder, String fileName, String fileUrl) {
+        if (fileUrl == null || !fileUrl.contains("/file/")) {
+            return;
+        }
+        String storedName = fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+        String name = segment(fileName != null ? fileName : storedName);
+
+        String path = folder + "/" + name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int copy = 2; !usedPaths.add(path); copy++) {
+            path = folder + "/" + base + " (" + copy + ")" + extension;
+        }
+        entries.add(new Entry(path, storedName));
+    }
+
+    private String studentFolder(User student, Long studentId) {
+        if (student == null) {
+            return segment(String.valueOf(studentId));
+        }
+        return segment(student.getLastName() + " " + student.getFirstName() + " (" + studentId + ")");
+    }
+
+    /**
+     * Имя папки или файла без разделителей путей и символов, недопустимых в Windows
+     */
+    private String segment(String value) {
+        String cleaned = value == null ? "" : value.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..")) {
+            return "_";
+        }
+        return cleaned;
+    }
+}
@@ -42,6 +42,8 @@ public class SolutionService {
     private final JwtTokenProvider tokenProvider;
     private final FileStorageService fileStorageService;
     private final TeacherInfoResolver teacherInfoResolver;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
 
     /**
      * Студент отправляет решение
@@ -85,6 +87,8 @@ public class SolutionService {
                 .build();
 
         Solution savedSolution = solutionRepository.save(solution);
+        gradeCache.invalidateCell(task.getChannelId(), task.getId(), studentId);
+        gradeSnapshotService.markStale(task.getId(), studentId);
         log.info("Студент {} отправил решение на задание {}", studentId, submitDto.getTaskId());
 
         return mapToDto(savedSolution, task,
@@ -268,6 +272,9 @@ public class SolutionService {
         }
 
         solutionRepository.delete(solution);
+        postRepository.findById(solution.getTaskId()).ifPresent(task ->
+                gradeCache.invalidateCell(task.getChannelId(), task.getId(), solution.getStudentId()));
+        gradeSnapshotService.markStale(solution.getTaskId(), solution.getStudentId());
         log.info("Решение с id {} удалено", solutionId);
     }
 
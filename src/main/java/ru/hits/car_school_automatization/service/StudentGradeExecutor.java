@@ -0,0 +1,70 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Выполняет расчет оценок по студентам последовательно или параллельно на виртуальных потоках.
+ * <p>
+ * Расчет должен идти по уже загруженному {@link ChannelGradeData}: рабочие потоки выполняются вне
+ * транзакции, контекста безопасности и запроса вызывающего и не должны обращаться к БД.
+ * Порядок результатов совпадает с порядком входа.
+ */
+@Slf4j
+@Component
+public class StudentGradeExecutor implements DisposableBean {
+
+    private final boolean parallel;
+    private final ExecutorService executor;
+
+    public StudentGradeExecutor(@Value("${grades.parallel.enabled:false}") boolean parallel) {
+        this.parallel = parallel;
+        this.executor = parallel ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public <T, R> List<R> map(List<T> items, Function<T, R> mapper) {
+        if (!parallel || items.size() <= 1) {
+            return items.stream().map(mapper).toList();
+        }
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> mapper.apply(item)));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Расчет оценок прерван", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка расчета оценок", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -29,12 +29,15 @@ public class TaskService {
 
     private final TaskRepository taskRepository;
     private final ChannelRepository channelRepository;
+    private final ChannelMembershipService channelMembershipService;
     private final UserRepository userRepository;
     private final JwtTokenProvider tokenProvider;
     private final TaskMapper taskMapper;
     private final TeamRepository teamRepository;
     private final TeamFormationService teamFormationService;
     private final FileStorageService fileStorageService;
+    private final GradeSnapshotService gradeSnapshotService;
+    private final GradeCache gradeCache;
 
     public TaskDto createTask(CreateTaskDto dto, UUID channelId, String authHeader) {
         log.info("start create");
@@ -159,6 +162,9 @@ public class TaskService {
         }
 
         Task savedTask = taskRepository.save(task);
+        // Дедлайны, штраф и P2P определяют, завершено ли задание и какая в снимке оценка
+        gradeCache.invalidateTarget(task.getChannel().getId(), taskId);
+        gradeSnapshotService.markTargetStale(taskId);
         return taskMapper.toDto(savedTask);
     }
 
@@ -246,6 +252,8 @@ public class TaskService {
         validateTeacherLeadsChannel(authHeader, task.getChannel());
         deleteTaskDocuments(task);
         taskRepository.delete(task);
+        gradeCache.invalidateTarget(task.getChannel().getId(), taskId);
+        gradeSnapshotService.deleteTarget(taskId);
     }
 
     public TaskDto addDocument(UUID taskId, MultipartFile file, String authHeader) {
@@ -322,8 +330,7 @@ public class TaskService {
             throw new ForbiddenException("Только преподаватель может управлять заданиями");
         }
 
-        boolean teachesChannel = channel.getUsers().stream()
-                .anyMatch(user -> user.getId().equals(requesterId));
+        boolean teachesChannel = channelMembershipService.isMember(channel, requesterId);
 
         if (!teachesChannel) {
             throw new ForbiddenException("Преподаватель не ведет этот предмет");
@@ -332,8 +339,7 @@ public class TaskService {
 
     private void validateUserInChannel(String authHeader, Channel channel) {
         Long userId = tokenProvider.extractUserIdFromHeader(authHeader);
-        boolean inChannel = channel.getUsers().stream().anyMatch(user -> user.getId().equals(userId));
-        if (!inChannel) {
+        if (!channelMembershipService.isMember(channel, userId)) {
             throw new ForbiddenException("У пользователя нет доступа к этому предмету");
         }
     }
@@ -355,10 +361,19 @@ public class TaskService {
                 .toList();
     }
 
+    /**
+     * Копия ссылается на те же файлы; счетчик ссылок не дает удалению одной из копий забрать файл у другой
+     */
     private List<TaskDocument> cloneDocuments(List<TaskDocument> documents) {
         if (documents == null || documents.isEmpty()) {
             return new ArrayList<>();
         }
+        documents.forEach(doc -> {
+            String filename = extractFilenameFromUrl(doc.getFileUrl());
+            if (filename != null) {
+                fileStorageService.retain(filename);
+            }
+        });
         return documents.stream()
                 .map(doc -> TaskDocument.builder().fileName(doc.getFileName()).fileUrl(doc.getFileUrl()).build())
                 .toList();
@@ -1,5 +1,6 @@
 package ru.hits.car_school_automatization.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,10 +29,14 @@ public class TaskSolutionService {
     private final SolutionVoteRepository solutionVoteRepository;
     private final TaskSolutionRepository taskSolutionRepository;
     private final TaskRepository taskRepository;
+    private final ChannelMembershipService channelMembershipService;
     private final UserRepository userRepository;
     private final JwtTokenProvider tokenProvider;
     private final FileStorageService fileStorageService;
+    private final GradeSnapshotService gradeSnapshotService;
+    private final GradeCache gradeCache;
 
+    @Timed("task.solutions")
     public TaskSolutionDto create(UUID taskId, CreateTaskSolutionDto dto, String authHeader) {
         Long userId = tokenProvider.extractUserIdFromHeader(authHeader);
         User user = getUserById(userId);
@@ -62,7 +67,9 @@ public class TaskSolutionService {
                 .documents(documents)
                 .build();
 
-        return toDto(taskSolutionRepository.save(solution));
+        TaskSolution saved = taskSolutionRepository.save(solution);
+        invalidateGrades(task);
+        return toDto(saved);
     }
 
     @Transactional
@@ -131,8 +138,10 @@ public class TaskSolutionService {
 
         deleteSolutionDocuments(solution);
         taskSolutionRepository.delete(solution);
+        invalidateGrades(task);
     }
 
+    @Timed("task.solutions")
     public SolutionVoteDto vote(CreateSolutionVoteDto dto, String authHeader) {
         Long voterId = tokenProvider.extractUserIdFromHeader(authHeader);
         User voter = getUserById(voterId);
@@ -328,6 +337,7 @@ public class TaskSolutionService {
         taskSolutionRepository.unselectAllByTaskIdAndTeamId(taskId, teamId);
         selectedSolution.setIsSelected(true);
         taskSolutionRepository.save(selectedSolution);
+        invalidateGrades(task);
 
         log.info("Автоматически выбрано решение {} для задания {} и команды {}",
                 selectedSolution.getId(), taskId, teamId);
@@ -525,6 +535,14 @@ public class TaskSolutionService {
         });
     }
 
+    /**
+     * Время сдачи команды (выбранное или первое решение) влияет на штраф за дедлайн у всех ее участников
+     */
+    private void invalidateGrades(Task task) {
+        gradeCache.invalidateTarget(task.getChannel().getId(), task.getId());
+        gradeSnapshotService.markTargetStale(task.getId());
+    }
+
     private TaskSolution getSolutionById(UUID solutionId) {
         return taskSolutionRepository.findById(solutionId)
                 .orElseThrow(() -> new NotFoundException("TaskSolution с id " + solutionId + " не найден"));
@@ -566,10 +584,7 @@ public class TaskSolutionService {
     }
 
     private void validateUserInTaskChannel(Long userId, Task task) {
-        boolean inChannel = task.getChannel().getUsers().stream()
-                .anyMatch(channelUser -> channelUser.getId().equals(userId));
-
-        if (!inChannel) {
+        if (!channelMembershipService.isMember(task.getChannel(), userId)) {
             throw new ForbiddenException("У пользователя нет доступа к этому предмету");
         }
     }
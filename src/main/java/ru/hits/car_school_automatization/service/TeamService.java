@@ -28,10 +28,13 @@ public class TeamService {
 
     private final TeamRepository teamRepository;
     private final TaskRepository taskRepository;
+    private final ChannelMembershipService channelMembershipService;
     private final UserRepository userRepository;
     private final CaptainVoteRepository captainVoteRepository;
     private final JwtTokenProvider tokenProvider;
     private final InviteRepository inviteRepository;
+    private final GradeCache gradeCache;
+    private final GradeSnapshotService gradeSnapshotService;
 
     private final TeamMapper teamMapper;
     private final UserMapper userMapper;
@@ -52,6 +55,7 @@ public class TeamService {
                 .build();
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(task);
         log.info("Пользователь {} создал команду {} для задания {}", requesterId, saved.getId(), task.getId());
 
         return teamMapper.toDto(saved);
@@ -85,6 +89,7 @@ public class TeamService {
         teamMapper.updateTeamFromDto(dto, team);
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(team.getTask());
         return teamMapper.toDto(saved);
     }
 
@@ -122,6 +127,7 @@ public class TeamService {
         }
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(team.getTask());
         return teamMapper.toDto(saved);
     }
 
@@ -151,6 +157,7 @@ public class TeamService {
         team.getUsers().add(student);
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(task);
         return teamMapper.toDto(saved);
     }
 
@@ -170,6 +177,7 @@ public class TeamService {
         }
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(team.getTask());
         return teamMapper.toDto(saved);
     }
 
@@ -192,6 +200,7 @@ public class TeamService {
         }
 
         Team saved = teamRepository.save(team);
+        invalidateGrades(task);
         return teamMapper.toDto(saved);
     }
 
@@ -202,6 +211,15 @@ public class TeamService {
         validateTeacherLeadsTaskChannel(authHeader, team.getTask());
 
         teamRepository.delete(team);
+        invalidateGrades(team.getTask());
+    }
+
+    /**
+     * Состав и дедлайн команд определяют оценки участников за задание и то, завершено ли оно
+     */
+    private void invalidateGrades(Task task) {
+        gradeCache.invalidateTarget(task.getChannel().getId(), task.getId());
+        gradeSnapshotService.markTargetStale(task.getId());
     }
 
     private Long validateTeacherLeadsTaskChannel(String authHeader, Task task) {
@@ -212,8 +230,7 @@ public class TeamService {
 
         RoleUtils.requireTeacher(requester, "Только преподаватель может управлять командами задания");
 
-        boolean teachesChannel = task.getChannel().getUsers().stream()
-                .anyMatch(user -> user.getId().equals(requesterId));
+        boolean teachesChannel = channelMembershipService.isMember(task.getChannel(), requesterId);
 
         if (!teachesChannel) {
             throw new ForbiddenException("Преподаватель не ведет предмет, к которому привязано задание");
@@ -534,6 +551,7 @@ public class TeamService {
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
         team.getUsers().add(user);
         teamRepository.save(team);
+        invalidateGrades(team.getTask());
 
         inviteRepository.delete(invite);
 
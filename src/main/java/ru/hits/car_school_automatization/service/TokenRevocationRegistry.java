@@ -0,0 +1,92 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hits.car_school_automatization.entity.TokenRevocation;
+import ru.hits.car_school_automatization.repository.TokenRevocationRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отзыв токенов для режима аутентификации без обращения к БД.
+ * <p>
+ * Смена ролей, деактивация и удаление пользователя запоминают момент отзыва, после чего токены,
+ * выданные раньше него, отклоняются. Сравнивается время выдачи токена, а не счетчик узла, поэтому
+ * токен, выданный после отзыва любым узлом, действует везде. Моменты отзыва хранятся в
+ * token_revocations и периодически подгружаются в память (см. {@link #refresh()}), так что отзыв
+ * доходит до остальных узлов и переживает перезапуск. Записи старше срока действия токена удаляются.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    private final long validityInMilliseconds;
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Map<Long, Instant> revokedAt = new ConcurrentHashMap<>();
+
+    public TokenRevocationRegistry(@Value("${jwt.expiration}") long validityInMilliseconds,
+                                   TokenRevocationRepository tokenRevocationRepository) {
+        this.validityInMilliseconds = validityInMilliseconds;
+        this.tokenRevocationRepository = tokenRevocationRepository;
+    }
+
+    /**
+     * Отзывает все выданные пользователю токены. Запись сохраняется в текущей транзакции,
+     * в память узла отзыв попадает после ее коммита.
+     */
+    public void revoke(Long userId) {
+        Instant now = Instant.now();
+        tokenRevocationRepository.save(TokenRevocation.builder().userId(userId).revokedAt(now).build());
+        afterCommit(() -> {
+            remember(userId, now);
+            log.debug("Отозваны токены пользователя {}", userId);
+        });
+    }
+
+    /**
+     * Токен выдан раньше последнего отзыва токенов пользователя
+     */
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        Instant revoked = revokedAt.get(userId);
+        return revoked != null && (issuedAt == null || issuedAt.isBefore(revoked));
+    }
+
+    /**
+     * Подгружает отзывы, сделанные другими узлами или до перезапуска, и забывает истекшие
+     */
+    public void refresh() {
+        Instant horizon = Instant.now().minusMillis(validityInMilliseconds);
+        tokenRevocationRepository.findByRevokedAtAfter(horizon)
+                .forEach(revocation -> remember(revocation.getUserId(), revocation.getRevokedAt()));
+        revokedAt.values().removeIf(revoked -> revoked.isBefore(horizon));
+    }
+
+    /**
+     * Удаляет записи об отзыве, после которых все затронутые токены уже истекли
+     */
+    public int purgeExpired() {
+        return tokenRevocationRepository.deleteByRevokedAtBefore(Instant.now().minusMillis(validityInMilliseconds));
+    }
+
+    private void remember(Long userId, Instant at) {
+        revokedAt.merge(userId, at, (previous, next) -> next.isAfter(previous) ? next : previous);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
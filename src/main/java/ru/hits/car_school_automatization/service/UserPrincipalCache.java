@@ -0,0 +1,148 @@
+package ru.hits.car_school_automatization.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.hits.car_school_automatization.entity.User;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей для JwtAuthFilter по id, чтобы аутентификация запроса не ходила в БД.
+ * <p>
+ * Хранится облегченная копия пользователя без пароля и предметов (channels загружаются EAGER
+ * и в кэше не нужны). Размер ограничен (LRU), записи устаревают по TTL. Изменения ролей,
+ * активности и удаление пользователя сбрасывают запись сразу и повторно — после коммита транзакции.
+ */
+@Slf4j
+@Component
+public class UserPrincipalCache {
+
+    public record Stats(long size, long hits, long misses, long evictions, long invalidations) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Увеличивается при каждом сбросе; пользователь, загруженный до сброса, в кэш не попадает
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserPrincipalCache(@Value("${jwt.principal-cache.max-size:10000}") int maxSize,
+                              @Value("${jwt.principal-cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > UserPrincipalCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Пользователь из кэша или загруженный через loader; отсутствующий пользователь не кэшируется
+     */
+    public Optional<User> get(Long userId, Function<Long, Optional<User>> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(userId).map(UserPrincipalCache::principalOf);
+        }
+
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                if (entry.expiresAt() - now > 0) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.user());
+                }
+                entries.remove(userId);
+                evictions.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        Optional<User> user = loader.apply(userId).map(UserPrincipalCache::principalOf);
+
+        user.ifPresent(principal -> {
+            synchronized (entries) {
+                if (generation.get() == startGeneration) {
+                    entries.put(userId, new Entry(principal, System.nanoTime() + ttlNanos));
+                }
+            }
+        });
+        return user;
+    }
+
+    /**
+     * Изменились роли, активность или данные пользователя, либо он удален
+     */
+    public void invalidate(Long userId) {
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.get(), misses.get(), evictions.get(), invalidations.get());
+        }
+    }
+
+    private void remove(Long userId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            if (entries.remove(userId) != null) {
+                invalidations.incrementAndGet();
+                log.debug("Сброшен кэшированный пользователь {}", userId);
+            }
+        }
+    }
+
+    private static User principalOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .age(user.getAge())
+                .phone(user.getPhone())
+                .email(user.getEmail())
+                .role(user.getRole() != null ? List.copyOf(user.getRole()) : List.of())
+                .isActive(user.getIsActive())
+                .build();
+    }
+}
@@ -28,6 +28,10 @@ public class UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final ChannelMembershipService channelMembershipService;
+    private final GradeCache gradeCache;
 
     /**
      * Создание нового пользователя
@@ -70,9 +74,15 @@ public class UserService {
         user.setAge(dto.getAge());
         user.setPhone(dto.getPhone());
         user.setEmail(dto.getEmail());
+        boolean rolesChanged = user.getRoleMask() != Role.toMask(dto.getRole());
         user.setRole(dto.getRole());
 
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(id);
+        if (rolesChanged) {
+            tokenRevocationRegistry.revoke(id);
+            invalidateChannelGrades(id);
+        }
         return userMapper.toDto(updatedUser);
     }
 
@@ -81,7 +91,10 @@ public class UserService {
      */
     public void deleteUser(Long id) {
         User user = findUserById(id);
+        invalidateChannelGrades(id);
         userRepository.delete(user);
+        userPrincipalCache.invalidate(id);
+        tokenRevocationRegistry.revoke(id);
     }
 
     /**
@@ -96,6 +109,8 @@ public class UserService {
 
         user.setIsActive(false);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(id);
+        tokenRevocationRegistry.revoke(id);
         return userMapper.toDto(updatedUser);
     }
 
@@ -111,6 +126,7 @@ public class UserService {
 
         user.setIsActive(true);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(id);
         return userMapper.toDto(updatedUser);
     }
 
@@ -170,6 +186,9 @@ public class UserService {
         user.setRole(updatedRoles);
 
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(id);
+        tokenRevocationRegistry.revoke(id);
+        invalidateChannelGrades(id);
         return userMapper.toDto(updatedUser);
     }
 
@@ -195,6 +214,9 @@ public class UserService {
         user.setRole(updatedRoles);
 
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(id);
+        tokenRevocationRegistry.revoke(id);
+        invalidateChannelGrades(id);
         return userMapper.toDto(updatedUser);
     }
 
@@ -216,6 +238,14 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Роли определяют, кто считается студентом предмета, поэтому после коммита сбрасываются
+     * таблицы и оценки за предметы во всех предметах пользователя
+     */
+    private void invalidateChannelGrades(Long userId) {
+        channelMembershipService.channelIdsOf(userId).forEach(gradeCache::invalidateChannelAggregates);
+    }
+
     private User findUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
@@ -0,0 +1,122 @@
+package ru.hits.car_school_automatization.util;
+
+import ru.hits.car_school_automatization.entity.DeadlinePenalty;
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.enums.MetricType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Чистые функции расчета оценок. Используются и поштучным расчетом в GradeService,
+ * и пакетным расчетом по загруженным данным предмета, поэтому результаты совпадают.
+ */
+public final class GradeCalculator {
+
+    private GradeCalculator() {
+    }
+
+    /**
+     * Оценка по критериям: среднее MARK, умноженное на произведение COEFFICIENT и ограниченное CONSTRAINT.
+     * Расчет выполняет {@link GradeMatrix}.
+     *
+     * @param values значения критериев пользователя по id критерия; отсутствующее значение заменяется minValue
+     */
+    public static double calculateMetrics(List<Metric> metrics, Map<UUID, Double> values) {
+        if (metrics == null || metrics.isEmpty()) {
+            return 0.0;
+        }
+
+        double[] row = new double[metrics.size()];
+        for (int m = 0; m < row.length; m++) {
+            Double value = values.get(metrics.get(m).getId());
+            row[m] = value != null ? value : Double.NaN;
+        }
+        return GradeMatrix.of(metrics).computeRow(row, 0);
+    }
+
+    /**
+     * Значение коэффициента контрольной (или самой контрольной): единственный COEFFICIENT-критерий поста.
+     *
+     * @param values значения критериев пользователя по id критерия
+     */
+    public static double calculateControlValue(List<Metric> metrics, Map<UUID, Double> values) {
+        Metric metric = resolveSingleCoefficientMetric(metrics);
+        if (metric == null) {
+            return 1.0;
+        }
+        return valueOrMin(metric, values.get(metric.getId()));
+    }
+
+    public static Metric resolveSingleCoefficientMetric(List<Metric> metrics) {
+        if (metrics == null || metrics.isEmpty()) {
+            return null;
+        }
+
+        List<Metric> coefficientMetrics = metrics.stream()
+                .filter(m -> m.getType() == MetricType.COEFFICIENT)
+                .sorted(Comparator.comparing(Metric::getId))
+                .toList();
+
+        if (!coefficientMetrics.isEmpty()) {
+            return coefficientMetrics.getFirst();
+        }
+
+        return metrics.size() == 1 ? metrics.getFirst() : null;
+    }
+
+    public static double valueOrMin(Metric metric, Double value) {
+        return value != null ? value : metric.getMinValue();
+    }
+
+    /**
+     * Штраф за просрочку: за каждые step единиц времени после дедлайна вычитается value, но не ниже нуля.
+     *
+     * @param submittedAt время сдачи; если решения нет, считается от now
+     */
+    public static double applyDeadlinePenalty(double mark, DeadlinePenalty penalty, Instant deadline,
+                                              Instant submittedAt, Instant now) {
+        if (penalty == null) {
+            return mark;
+        }
+        Integer step = penalty.getStep();
+        Double penaltyValue = penalty.getValue();
+        if (penalty.getUnit() == null || step == null || step <= 0 || penaltyValue == null || deadline == null) {
+            return mark;
+        }
+
+        Instant actualTime = submittedAt != null ? submittedAt : now;
+        if (!actualTime.isAfter(deadline)) {
+            return mark;
+        }
+
+        Duration duration = Duration.between(deadline, actualTime);
+        long delta;
+
+        switch (penalty.getUnit()) {
+            case MINUTE -> delta = duration.toMinutes();
+            case HOUR -> delta = duration.toHours();
+            case DAY -> delta = duration.toDays();
+            default -> delta = 0;
+        }
+
+        if (delta <= 0) {
+            return mark;
+        }
+
+        long steps = delta / step;
+        return Math.max(0.0, mark - steps * penaltyValue);
+    }
+
+    /**
+     * Перестанет ли оценка меняться со временем: штраф растет только пока решение не сдано
+     * и оценка еще не опустилась до нуля
+     */
+    public static boolean isPenaltySettled(double grade, DeadlinePenalty penalty, Instant deadline, Instant submittedAt) {
+        return penalty == null || deadline == null || submittedAt != null || grade <= 0.0;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.hits.car_school_automatization.util;
+
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.enums.MetricType;
+
+import java.util.List;
+
+/**
+ * Расчет оценок по критериям на примитивных массивах.
+ * <p>
+ * Значения хранятся плотной матрицей студенты × критерии (по строкам), отсутствующее значение — NaN
+ * и заменяется minValue критерия. Типы критериев заданы масками, поэтому расчет целой цели для всех
+ * студентов выполняется за один проход без упаковки значений.
+ * <p>
+ * Среднее MARK считается той же компенсированной суммой, что и {@link java.util.stream.DoubleStream#sum()},
+ * поэтому результат побитово совпадает с прежним расчетом через списки.
+ */
+public final class GradeMatrix {
+
+    private final int metricCount;
+    private final int markCount;
+    private final boolean[] markMask;
+    private final boolean[] coefficientMask;
+    private final boolean[] constraintMask;
+    private final double[] minValues;
+
+    private GradeMatrix(List<Metric> metrics) {
+        this.metricCount = metrics.size();
+        this.markMask = new boolean[metricCount];
+        this.coefficientMask = new boolean[metricCount];
+        this.constraintMask = new boolean[metricCount];
+        this.minValues = new double[metricCount];
+
+        int marks = 0;
+        for (int m = 0; m < metricCount; m++) {
+            Metric metric = metrics.get(m);
+            MetricType type = metric.getType();
+            markMask[m] = type == MetricType.MARK;
+            coefficientMask[m] = type == MetricType.COEFFICIENT;
+            constraintMask[m] = type == MetricType.CONSTRAINT;
+            minValues[m] = metric.getMinValue() != null ? metric.getMinValue() : Double.NaN;
+            if (markMask[m]) {
+                marks++;
+            }
+        }
+        this.markCount = marks;
+    }
+
+    /**
+     * @param metrics порядок критериев задает порядок столбцов матрицы
+     */
+    public static GradeMatrix of(List<Metric> metrics) {
+        return new GradeMatrix(metrics);
+    }
+
+    public int metricCount() {
+        return metricCount;
+    }
+
+    /**
+     * Оценки всех строк матрицы.
+     *
+     * @param values матрица rows × metricCount по строкам
+     * @param out    результат, по одному значению на строку
+     */
+    public void compute(double[] values, int rows, double[] out) {
+        for (int row = 0; row < rows; row++) {
+            out[row] = computeRow(values, row * metricCount);
+        }
+    }
+
+    /**
+     * Оценка одной строки матрицы, начинающейся с offset
+     */
+    public double computeRow(double[] values, int offset) {
+        if (metricCount == 0) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        double compensation = 0.0;
+        double simpleSum = 0.0;
+        double coefficientProduct = 1.0;
+
+        for (int m = 0; m < metricCount; m++) {
+            double value = valueAt(values, offset, m);
+            if (markMask[m]) {
+                // суммирование Кэхэна с компенсацией ошибки округления, как в DoubleStream.sum
+                double tmp = value - compensation;
+                double next = sum + tmp;
+                compensation = (next - sum) - tmp;
+                sum = next;
+                simpleSum += value;
+            } else if (coefficientMask[m]) {
+                coefficientProduct *= value;
+            }
+        }
+
+        double base = 0.0;
+        if (markCount > 0) {
+            double total = sum - compensation;
+            if (Double.isNaN(total) && Double.isInfinite(simpleSum)) {
+                total = simpleSum;
+            }
+            base = total / markCount;
+        }
+
+        double result = base * coefficientProduct;
+        for (int m = 0; m < metricCount; m++) {
+            if (constraintMask[m]) {
+                double limit = valueAt(values, offset, m);
+                if (result > limit) {
+                    result = limit;
+                }
+            }
+        }
+        return result;
+    }
+
+    private double valueAt(double[] values, int offset, int metric) {
+        double value = values[offset + metric];
+        return Double.isNaN(value) ? minValues[metric] : value;
+    }
+}
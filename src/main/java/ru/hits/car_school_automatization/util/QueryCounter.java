@@ -0,0 +1,41 @@
+package ru.hits.car_school_automatization.util;
+
+/**
+ * Счетчики SQL-запросов и загруженных сущностей текущего потока.
+ * <p>
+ * Счетчики только растут; участок кода измеряется разностью {@link #snapshot()} до и после,
+ * поэтому вложенные измерения (запрос целиком и его часть в тесте) не мешают друг другу.
+ * Значения увеличивают StatementInspector и Interceptor Hibernate, см. QueryCountConfig.
+ */
+public final class QueryCounter {
+
+    public record Counts(long statements, long entities) {
+
+        public Counts minus(Counts other) {
+            return new Counts(statements - other.statements, entities - other.entities);
+        }
+    }
+
+    private static final class Counters {
+        private long statements;
+        private long entities;
+    }
+
+    private static final ThreadLocal<Counters> COUNTERS = ThreadLocal.withInitial(Counters::new);
+
+    private QueryCounter() {
+    }
+
+    public static void statementPrepared() {
+        COUNTERS.get().statements++;
+    }
+
+    public static void entityLoaded() {
+        COUNTERS.get().entities++;
+    }
+
+    public static Counts snapshot() {
+        Counters counters = COUNTERS.get();
+        return new Counts(counters.statements, counters.entities);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.hits.car_school_automatization.util;
+
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Идентификатор текущего запроса или прохода планировщика.
+ * Хранится в MDC, поэтому попадает и в логи, и в события JFR.
+ */
+public final class RequestId {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+
+    /**
+     * Идентификатор от клиента попадает в логи как есть, поэтому допускаются только безопасные символы
+     */
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private RequestId() {
+    }
+
+    /**
+     * @return идентификатор текущего потока или null вне запроса
+     */
+    public static String current() {
+        return MDC.get(MDC_KEY);
+    }
+
+    /**
+     * Устанавливает идентификатор для текущего потока; пустой, слишком длинный или содержащий
+     * посторонние символы заменяется новым
+     */
+    public static String start(String candidate) {
+        String requestId = candidate != null && VALID.matcher(candidate).matches()
+                ? candidate
+                : UUID.randomUUID().toString();
+        MDC.put(MDC_KEY, requestId);
+        return requestId;
+    }
+
+    public static void clear() {
+        MDC.remove(MDC_KEY);
+    }
+}
@@ -6,6 +6,8 @@ import ru.hits.car_school_automatization.exception.ForbiddenException;
 
 public final class RoleUtils {
 
+    private static final int TEACHER_OR_MANAGER = Role.TEACHER.bit() | Role.MANAGER.bit();
+
     private RoleUtils() {
     }
 
@@ -14,7 +16,7 @@ public final class RoleUtils {
     }
 
     public static boolean isTeacherOrManager(User user) {
-        return user.getRole().contains(Role.TEACHER) || user.getRole().contains(Role.MANAGER);
+        return (user.getRoleMask() & TEACHER_OR_MANAGER) != 0;
     }
 
     public static void requireTeacher(User user, String message) {
@@ -0,0 +1,55 @@
+package ru.hits.car_school_automatization.bdd;
+
+import io.cucumber.java.ru.Дано;
+import io.cucumber.java.ru.Когда;
+import io.cucumber.java.ru.Тогда;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.hits.car_school_automatization.entity.Post;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.util.QueryBudget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class QueryBudgetSteps {
+
+    @Autowired private BddTestHelper helper;
+    @Autowired private BddState state;
+    @Autowired private MockMvc mockMvc;
+
+    private Callable<?> request;
+
+    @Дано("предмет с {int} студентами и {int} заданиями с критериями")
+    public void channelWithStudentsAndTasks(int studentCount, int taskCount) {
+        helper.cleanDb();
+        state.setTeacher(helper.createTeacher());
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < studentCount; i++) {
+            students.add(helper.createStudent("budget" + i));
+        }
+        state.setChannel(helper.createChannel(state.getTeacher(), students));
+        for (int i = 0; i < taskCount; i++) {
+            Post post = helper.createPostWithP2P(state.getChannel(), state.getTeacher(), "Задание " + i);
+            helper.createMetricForPost(post, "Критерий " + i);
+        }
+    }
+
+    @Когда("преподаватель запрашивает таблицу оценок предмета")
+    public void teacherRequestsGradeTable() throws Exception {
+        String token = helper.getToken(state.getTeacher());
+        request = () -> mockMvc.perform(
+                        get("/api/grades/channel/{channelId}/table", state.getChannel().getId())
+                                .header("Authorization", token))
+                .andExpect(status().isOk());
+    }
+
+    @Тогда("запрос выполняет не более {int} SQL-запросов")
+    public void requestFitsQueryBudget(int maxStatements) throws Exception {
+        QueryBudget.assertAtMost(maxStatements, request);
+    }
+}
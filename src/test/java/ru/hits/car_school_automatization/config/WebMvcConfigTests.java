@@ -0,0 +1,90 @@
+package ru.hits.car_school_automatization.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import ru.hits.car_school_automatization.controller.FileController;
+import ru.hits.car_school_automatization.filter.QueryCountInterceptor;
+import ru.hits.car_school_automatization.filter.RateLimitInterceptor;
+import ru.hits.car_school_automatization.repository.FileBlobRepository;
+import ru.hits.car_school_automatization.service.FileStorageService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("WebMvcConfig Tests")
+class WebMvcConfigTests {
+
+    private static final String NAME = "0f8fad5b-d9cb-469f-a165-70867728950e.txt";
+
+    @TempDir
+    Path uploadDir;
+
+    private GenericWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @EnableWebMvc
+    static class MvcConfig {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(uploadDir.resolve(NAME), "content");
+
+        RateLimitInterceptor rateLimitInterceptor = mock(RateLimitInterceptor.class);
+        QueryCountInterceptor queryCountInterceptor = mock(QueryCountInterceptor.class);
+        when(rateLimitInterceptor.preHandle(any(), any(), any())).thenReturn(true);
+        when(queryCountInterceptor.preHandle(any(), any(), any())).thenReturn(true);
+        WebMvcConfig webMvcConfig = new WebMvcConfig(rateLimitInterceptor, queryCountInterceptor);
+
+        FileStorageService fileStorageService = new FileStorageService(uploadDir.toString(), false,
+                mock(FileBlobRepository.class), mock(PlatformTransactionManager.class));
+
+        context = new GenericWebApplicationContext(new MockServletContext());
+        // значение по умолчанию из @Value, "30m" разбирается как в Spring Boot
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        new AnnotatedBeanDefinitionReader(context).register(MvcConfig.class);
+        context.registerBean(WebMvcConfig.class, () -> webMvcConfig);
+        context.registerBean(FileController.class, () -> new FileController(fileStorageService));
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("Потоковый ответ получает настроенный тайм-аут вместо 30 секунд контейнера")
+    void streamingResponse_shouldUseConfiguredAsyncTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/file/" + NAME))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+}
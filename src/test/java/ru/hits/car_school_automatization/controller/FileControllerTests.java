@@ -0,0 +1,218 @@
+package ru.hits.car_school_automatization.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.hits.car_school_automatization.repository.FileBlobRepository;
+import ru.hits.car_school_automatization.service.FileStorageService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("File Controller Tests")
+class FileControllerTests {
+
+    private static final String NAME = "0f8fad5b-d9cb-469f-a165-70867728950e.txt";
+    private static final String CONTENT = "0123456789abcdef";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private FileBlobRepository fileBlobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MockMvc mockMvc;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        Path file = uploadDir.resolve(NAME);
+        Files.writeString(file, CONTENT);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+
+        FileStorageService fileStorageService =
+                new FileStorageService(uploadDir.toString(), false, fileBlobRepository, transactionManager);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileStorageService)).build();
+        etag = "\"" + Long.toHexString(CONTENT.length()) + "-" + Long.toHexString(LAST_MODIFIED) + "\"";
+    }
+
+    @Test
+    @DisplayName("Файл целиком отдается с ETag, Last-Modified и Accept-Ranges")
+    void getFile_withoutRange_shouldReturnWholeFile() throws Exception {
+        MvcResult result = streamed(get("/file/" + NAME));
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(CONTENT, result.getResponse().getContentAsString());
+        assertEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", result.getResponse().getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(httpDate(LAST_MODIFIED), result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @DisplayName("Несуществующий файл — 404")
+    void getFile_missing_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/file/missing.txt"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Один диапазон — 206 с Content-Range")
+    void getFile_singleRange_shouldReturnPartialContent() throws Exception {
+        MvcResult result = streamed(get("/file/" + NAME).header(HttpHeaders.RANGE, "bytes=2-5"));
+
+        assertEquals(206, result.getResponse().getStatus());
+        assertEquals("bytes 2-5/16", result.getResponse().getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Суффиксный диапазон отдает последние байты")
+    void getFile_suffixRange_shouldReturnTail() throws Exception {
+        MvcResult result = streamed(get("/file/" + NAME).header(HttpHeaders.RANGE, "bytes=-3"));
+
+        assertEquals(206, result.getResponse().getStatus());
+        assertEquals("bytes 13-15/16", result.getResponse().getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("def", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Несколько диапазонов — multipart/byteranges с частью на каждый диапазон")
+    void getFile_multipleRanges_shouldReturnMultipart() throws Exception {
+        MvcResult result = streamed(get("/file/" + NAME).header(HttpHeaders.RANGE, "bytes=0-1,10-12"));
+
+        assertEquals(206, result.getResponse().getStatus());
+        MediaType contentType = MediaType.parseMediaType(result.getResponse().getContentType());
+        assertEquals("multipart/byteranges", contentType.getType() + "/" + contentType.getSubtype());
+        String boundary = contentType.getParameter("boundary");
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("--" + boundary + "\r\nContent-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-1/16\r\n\r\n01\r\n"), body);
+        assertTrue(body.contains("Content-Range: bytes 10-12/16\r\n\r\nabc\r\n--" + boundary + "--\r\n"), body);
+    }
+
+    @Test
+    @DisplayName("Диапазон за пределами файла — 416 с Content-Range bytes */размер")
+    void getFile_unsatisfiableRange_shouldReturn416() throws Exception {
+        mockMvc.perform(get("/file/" + NAME).header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+    }
+
+    @Test
+    @DisplayName("Перекрывающиеся диапазоны больше файла — 416")
+    void getFile_overlappingRanges_shouldReturn416() throws Exception {
+        mockMvc.perform(get("/file/" + NAME).header(HttpHeaders.RANGE, "bytes=0-15,0-15"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    @DisplayName("If-Range с текущим ETag отдает диапазон, с устаревшим — весь файл")
+    void getFile_ifRangeEtag() throws Exception {
+        MvcResult matching = streamed(get("/file/" + NAME)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, etag));
+        assertEquals(206, matching.getResponse().getStatus());
+        assertEquals("2345", matching.getResponse().getContentAsString());
+
+        MvcResult stale = streamed(get("/file/" + NAME)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"stale\""));
+        assertEquals(200, stale.getResponse().getStatus());
+        assertEquals(CONTENT, stale.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("If-Range с датой изменения отдает диапазон, с другой датой — весь файл")
+    void getFile_ifRangeDate() throws Exception {
+        MvcResult matching = streamed(get("/file/" + NAME)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED)));
+        assertEquals(206, matching.getResponse().getStatus());
+
+        MvcResult stale = streamed(get("/file/" + NAME)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED - 60_000)));
+        assertEquals(200, stale.getResponse().getStatus());
+        assertEquals(CONTENT, stale.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("If-None-Match с текущим ETag — 304 без тела")
+    void getFile_ifNoneMatch_shouldReturnNotModified() throws Exception {
+        mockMvc.perform(get("/file/" + NAME).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(request().asyncNotStarted())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("If-Modified-Since не раньше изменения — 304, раньше — 200")
+    void getFile_ifModifiedSince() throws Exception {
+        mockMvc.perform(get("/file/" + NAME).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+
+        MvcResult modified = streamed(get("/file/" + NAME)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED - 60_000)));
+        assertEquals(200, modified.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("При поддержке sendfile контроллер отдает только заголовки и передает диапазон Tomcat")
+    void getFile_sendfile_shouldDelegateRangeToContainer() throws Exception {
+        MvcResult result = mockMvc.perform(get("/file/" + NAME)
+                        .requestAttr("org.apache.tomcat.sendfile.support", true)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/16"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andReturn();
+
+        assertEquals(uploadDir.resolve(NAME).toString(),
+                result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(2L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    private MvcResult streamed(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+}
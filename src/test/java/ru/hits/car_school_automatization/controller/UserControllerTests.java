@@ -15,7 +15,11 @@ import ru.hits.car_school_automatization.exception.BadRequestException;
 import ru.hits.car_school_automatization.exception.NotFoundException;
 import ru.hits.car_school_automatization.mapper.UserMapper;
 import ru.hits.car_school_automatization.repository.UserRepository;
+import ru.hits.car_school_automatization.service.ChannelMembershipService;
+import ru.hits.car_school_automatization.service.GradeCache;
 import ru.hits.car_school_automatization.service.JwtTokenProvider;
+import ru.hits.car_school_automatization.service.TokenRevocationRegistry;
+import ru.hits.car_school_automatization.service.UserPrincipalCache;
 import ru.hits.car_school_automatization.service.UserService;
 import ru.hits.car_school_automatization.testdata.UserTestData;
 
@@ -57,10 +61,23 @@ class UserControllerTests {
     @Mock
     private JwtTokenProvider jwtTokenProvider;
 
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Mock
+    private ChannelMembershipService channelMembershipService;
+
+    @Mock
+    private GradeCache gradeCache;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserService(userRepository, userMapper, passwordEncoder, jwtTokenProvider);
+        userService = new UserService(userRepository, userMapper, passwordEncoder, jwtTokenProvider, userPrincipalCache,
+                tokenRevocationRegistry, channelMembershipService, gradeCache);
         userController = new UserController(userService);
     }
 
@@ -0,0 +1,212 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.DeadlinePenaltyUnit;
+import ru.hits.car_school_automatization.enums.MetricType;
+import ru.hits.car_school_automatization.enums.PostType;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelGradeDataTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+
+    @Test
+    @DisplayName("Оценка за пост: среднее MARK, умноженное на COEFFICIENT и ограниченное CONSTRAINT")
+    void postGrade_CombinesMetricTypes() {
+        Post post = post(PostType.TASK);
+        Metric mark1 = metric(post.getId(), MetricType.MARK, 0.0);
+        Metric mark2 = metric(post.getId(), MetricType.MARK, 0.0);
+        Metric coefficient = metric(post.getId(), MetricType.COEFFICIENT, 1.0);
+        Metric constraint = metric(post.getId(), MetricType.CONSTRAINT, 10.0);
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .taskPosts(List.of(post))
+                .metrics(List.of(mark1, mark2, coefficient, constraint))
+                .metricValues(List.of(
+                        value(mark1, 1L, 6.0),
+                        value(mark2, 1L, 8.0),
+                        value(coefficient, 1L, 2.0),
+                        value(constraint, 1L, 12.0)))
+                .now(NOW)
+                .build();
+
+        assertEquals(12.0, data.postGrade(post, 1L));
+        assertEquals(0.0, data.postGrade(post, 2L));
+    }
+
+    @Test
+    @DisplayName("Штраф за дедлайн считается от времени сдачи, а без решения — от момента снимка")
+    void postGrade_AppliesDeadlinePenalty() {
+        Post post = post(PostType.TASK);
+        post.setDeadline(LocalDateTime.ofInstant(NOW.minusSeconds(3 * 86400), ZoneOffset.UTC));
+        post.setDeadlinePenalty(DeadlinePenalty.builder()
+                .unit(DeadlinePenaltyUnit.DAY)
+                .step(1)
+                .value(1.0)
+                .build());
+        Metric mark = metric(post.getId(), MetricType.MARK, 0.0);
+
+        Solution solution = Solution.builder()
+                .taskId(post.getId())
+                .studentId(1L)
+                .submittedAt(LocalDateTime.ofInstant(NOW.minusSeconds(2 * 86400), ZoneOffset.UTC))
+                .build();
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .taskPosts(List.of(post))
+                .metrics(List.of(mark))
+                .metricValues(List.of(value(mark, 1L, 10.0), value(mark, 2L, 10.0)))
+                .solutions(List.of(solution))
+                .now(NOW)
+                .build();
+
+        assertEquals(9.0, data.postGrade(post, 1L));
+        assertEquals(7.0, data.postGrade(post, 2L));
+    }
+
+    @Test
+    @DisplayName("Оценка за предмет учитывает коэффициенты контрольных")
+    void channelGrade_AppliesControlCoefficients() {
+        Post post = post(PostType.TASK);
+        Post controlPost = post(PostType.CONTROL);
+        Metric mark = metric(post.getId(), MetricType.MARK, 0.0);
+        Metric controlMetric = metric(controlPost.getId(), MetricType.COEFFICIENT, 1.0);
+        Control control = Control.builder()
+                .postId(controlPost.getId())
+                .postTaskIds(Set.of(post.getId()))
+                .build();
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .taskPosts(List.of(post))
+                .controls(List.of(control))
+                .controlPosts(List.of(controlPost))
+                .metrics(List.of(mark, controlMetric))
+                .metricValues(List.of(value(mark, 1L, 8.0), value(controlMetric, 1L, 0.5)))
+                .now(NOW)
+                .build();
+
+        assertEquals(0.5, data.controlCoefficient(control, 1L));
+        assertEquals(4.0, data.channelGrade(1L));
+        assertEquals(List.of(controlPost.getId()), data.controlIdsOf(post.getId()));
+    }
+
+    @Test
+    @DisplayName("Студент без команды получает 0 за командное задание")
+    void taskGrade_WithoutTeam_ReturnsZero() {
+        Task task = Task.builder().id(UUID.randomUUID()).build();
+        Metric mark = metric(null, MetricType.MARK, 0.0);
+        mark.setTaskId(task.getId());
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .tasks(List.of(task))
+                .metrics(List.of(mark))
+                .metricValues(List.of(value(mark, 1L, 10.0)))
+                .now(NOW)
+                .build();
+
+        assertEquals(0.0, data.taskGrade(task, 1L));
+    }
+
+    @Test
+    @DisplayName("Расчет \"что если\" меняет оценку только в копии снимка")
+    void withOverrides_DoesNotChangeBaseSnapshot() {
+        Post post = post(PostType.TASK);
+        post.setDeadline(LocalDateTime.ofInstant(NOW.minusSeconds(3 * 86400), ZoneOffset.UTC));
+        post.setDeadlinePenalty(DeadlinePenalty.builder()
+                .unit(DeadlinePenaltyUnit.DAY)
+                .step(1)
+                .value(1.0)
+                .build());
+        Metric mark1 = metric(post.getId(), MetricType.MARK, 0.0);
+        Metric mark2 = metric(post.getId(), MetricType.MARK, 0.0);
+        User student = User.builder().id(1L).build();
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .students(List.of(student))
+                .taskPosts(List.of(post))
+                .metrics(List.of(mark1, mark2))
+                .metricValues(List.of(value(mark1, 1L, 6.0), value(mark2, 1L, 8.0)))
+                .now(NOW)
+                .build();
+
+        Map<UUID, DeadlinePenalty> noPenalty = new HashMap<>();
+        noPenalty.put(post.getId(), null);
+        ChannelGradeData simulated = data.withOverrides(1L, Map.of(mark1.getId(), 10.0), noPenalty);
+
+        assertEquals(4.0, data.postGrade(post, 1L));
+        assertEquals(9.0, simulated.postGrade(post, 1L));
+        assertEquals(4.0, data.channelGrade(1L));
+        assertNotNull(post.getDeadlinePenalty());
+    }
+
+    @Test
+    @DisplayName("Актуальный снимок заменяет расчет, устаревший и чужой — нет; в расчете \"что если\" снимок пользователя не используется")
+    void postGrade_UsesFreshSnapshot() {
+        Post post = post(PostType.TASK);
+        Metric mark = metric(post.getId(), MetricType.MARK, 0.0);
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .students(List.of(User.builder().id(1L).build(), User.builder().id(2L).build()))
+                .taskPosts(List.of(post))
+                .metrics(List.of(mark))
+                .metricValues(List.of(value(mark, 1L, 6.0), value(mark, 2L, 6.0)))
+                .snapshots(List.of(
+                        snapshot(post.getId(), 1L, 9.0, false),
+                        snapshot(post.getId(), 2L, 9.0, true)))
+                .now(NOW)
+                .build();
+
+        assertEquals(9.0, data.postGrade(post, 1L));
+        assertEquals(6.0, data.postGrade(post, 2L));
+        assertEquals(9.0, data.channelGrade(1L));
+
+        ChannelGradeData simulated = data.withOverrides(1L, Map.of(mark.getId(), 7.0), Map.of());
+        assertEquals(7.0, simulated.postGrade(post, 1L));
+    }
+
+    private GradeSnapshot snapshot(UUID targetId, Long userId, Double value, boolean stale) {
+        return GradeSnapshot.builder()
+                .targetId(targetId)
+                .userId(userId)
+                .value(value)
+                .stale(stale)
+                .build();
+    }
+
+    private Post post(PostType type) {
+        return Post.builder()
+                .id(UUID.randomUUID())
+                .type(type)
+                .build();
+    }
+
+    private Metric metric(UUID postId, MetricType type, double minValue) {
+        return Metric.builder()
+                .id(UUID.randomUUID())
+                .postId(postId)
+                .type(type)
+                .minValue(minValue)
+                .maxValue(100.0)
+                .build();
+    }
+
+    private MetricValue value(Metric metric, Long userId, double value) {
+        return MetricValue.builder()
+                .metricId(metric.getId())
+                .userId(userId)
+                .value(value)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.MetricType;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.repository.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelGradeLoaderTest {
+
+    @Mock
+    private ChannelRepository channelRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private ControlRepository controlRepository;
+    @Mock
+    private MetricRepository metricRepository;
+    @Mock
+    private MetricValueRepository metricValueRepository;
+    @Mock
+    private SolutionRepository solutionRepository;
+    @Mock
+    private TeamRepository teamRepository;
+    @Mock
+    private TaskSolutionRepository taskSolutionRepository;
+    @Mock
+    private GradeSnapshotRepository gradeSnapshotRepository;
+
+    @InjectMocks
+    private ChannelGradeLoader channelGradeLoader;
+
+    @Test
+    @DisplayName("Число запросов не зависит от количества студентов и контрольных")
+    void load_QueryCountIndependentOfStudents() {
+        UUID channelId = UUID.randomUUID();
+        List<Post> taskPosts = List.of(post(PostType.TASK), post(PostType.TASK), post(PostType.TASK));
+        List<Post> controlPosts = List.of(post(PostType.CONTROL), post(PostType.CONTROL));
+
+        List<Control> controls = new ArrayList<>();
+        List<Metric> metrics = new ArrayList<>();
+        Set<UUID> taskPostIds = new HashSet<>();
+        taskPosts.forEach(post -> {
+            taskPostIds.add(post.getId());
+            metrics.add(metric(post.getId(), MetricType.MARK));
+        });
+        for (Post controlPost : controlPosts) {
+            controls.add(Control.builder().postId(controlPost.getId()).channelId(channelId).postTaskIds(taskPostIds).build());
+            metrics.add(metric(controlPost.getId(), MetricType.COEFFICIENT));
+        }
+
+        Set<User> users = new HashSet<>();
+        LongStream.rangeClosed(1, 50).forEach(id -> users.add(User.builder().id(id).role(List.of(Role.STUDENT)).build()));
+        Channel channel = new Channel(channelId, "Предмет", null, null, users, User.builder().id(100L).build());
+
+        when(channelRepository.findById(channelId)).thenReturn(Optional.of(channel));
+        when(postRepository.findByChannelIdAndType(channelId, PostType.TASK)).thenReturn(taskPosts);
+        when(taskRepository.findByChannel_Id(channelId)).thenReturn(List.of());
+        when(controlRepository.findWithTargetsByChannelId(channelId)).thenReturn(controls);
+        when(metricRepository.findByPostIdIn(anyCollection())).thenReturn(metrics);
+        when(postRepository.findAllById(any())).thenReturn(controlPosts);
+        when(metricValueRepository.findByMetricIdInAndUserIdIn(anyList(), anyList())).thenReturn(List.of());
+        when(solutionRepository.findByTaskIdInAndStudentIdIn(anyCollection(), anyCollection())).thenReturn(List.of());
+
+        ChannelGradeData data = channelGradeLoader.load(channelId, (Long) null);
+        for (User student : data.getStudents()) {
+            data.tableRow(student, data.tableTargets());
+            data.channelGrade(student.getId());
+        }
+
+        assertEquals(50, data.getStudents().size());
+        verify(controlRepository, times(1)).findWithTargetsByChannelId(channelId);
+        verify(metricRepository, times(1)).findByPostIdIn(anyCollection());
+        verify(metricValueRepository, times(1)).findByMetricIdInAndUserIdIn(anyList(), anyList());
+        verify(solutionRepository, times(1)).findByTaskIdInAndStudentIdIn(anyCollection(), anyCollection());
+        verify(gradeSnapshotRepository, never()).findFreshByChannelIdAndUserIdIn(any(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("Актуальные снимки читаются одним запросом на всех студентов и заменяют расчет")
+    void load_WithSnapshots_ReadsSnapshotsOnce() {
+        ReflectionTestUtils.setField(channelGradeLoader, "snapshotsEnabled", true);
+        UUID channelId = UUID.randomUUID();
+        Post taskPost = post(PostType.TASK);
+        Metric mark = metric(taskPost.getId(), MetricType.MARK);
+        Set<User> users = new HashSet<>();
+        LongStream.rangeClosed(1, 3).forEach(id -> users.add(User.builder().id(id).role(List.of(Role.STUDENT)).build()));
+        Channel channel = new Channel(channelId, "Предмет", null, null, users, User.builder().id(100L).build());
+
+        when(channelRepository.findById(channelId)).thenReturn(Optional.of(channel));
+        when(postRepository.findByChannelIdAndType(channelId, PostType.TASK)).thenReturn(List.of(taskPost));
+        when(taskRepository.findByChannel_Id(channelId)).thenReturn(List.of());
+        when(controlRepository.findWithTargetsByChannelId(channelId)).thenReturn(List.of());
+        when(metricRepository.findByPostIdIn(anyCollection())).thenReturn(List.of(mark));
+        when(metricValueRepository.findByMetricIdInAndUserIdIn(anyList(), anyList())).thenReturn(List.of());
+        when(solutionRepository.findByTaskIdInAndStudentIdIn(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(gradeSnapshotRepository.findFreshByChannelIdAndUserIdIn(any(), anyCollection())).thenReturn(List.of(
+                GradeSnapshot.builder().channelId(channelId).targetId(taskPost.getId()).userId(2L).value(8.0).build()));
+
+        ChannelGradeData data = channelGradeLoader.load(channelId, (Long) null);
+
+        assertEquals(8.0, data.channelGrade(2L));
+        assertEquals(0.0, data.channelGrade(1L));
+        verify(gradeSnapshotRepository, times(1)).findFreshByChannelIdAndUserIdIn(any(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("Порция студентов загружает только свои команды и их решения, общая часть предмета не перечитывается")
+    void load_WithTargets_LoadsOnlyChunkTeams() {
+        UUID channelId = UUID.randomUUID();
+        Task task = Task.builder().id(UUID.randomUUID()).build();
+        Team team = Team.builder().id(UUID.randomUUID()).task(task).users(new HashSet<>()).build();
+        List<User> chunk = List.of(User.builder().id(1L).role(List.of(Role.STUDENT)).build(),
+                User.builder().id(2L).role(List.of(Role.STUDENT)).build());
+        ChannelGradeLoader.Targets targets = new ChannelGradeLoader.Targets(
+                List.of(), List.of(task), List.of(), List.of(), List.of());
+
+        when(teamRepository.findWithUsersByTaskIdInAndUserIdIn(List.of(task.getId()), List.of(1L, 2L)))
+                .thenReturn(List.of(team));
+        when(taskSolutionRepository.findByTeamIdIn(List.of(team.getId()))).thenReturn(List.of());
+
+        channelGradeLoader.load(channelId, targets, chunk);
+
+        verify(teamRepository, never()).findWithUsersByTaskIdIn(anyCollection());
+        verify(taskSolutionRepository, never()).findByTaskIdIn(anyCollection());
+        verify(taskRepository, never()).findByChannel_Id(any());
+        verify(controlRepository, never()).findWithTargetsByChannelId(any());
+    }
+
+    private Post post(PostType type) {
+        return Post.builder().id(UUID.randomUUID()).type(type).build();
+    }
+
+    private Metric metric(UUID postId, MetricType type) {
+        return Metric.builder()
+                .id(UUID.randomUUID())
+                .postId(postId)
+                .type(type)
+                .minValue(0.0)
+                .maxValue(10.0)
+                .build();
+    }
+}
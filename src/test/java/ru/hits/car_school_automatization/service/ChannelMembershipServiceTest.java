@@ -0,0 +1,79 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.hits.car_school_automatization.repository.ChannelRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelMembershipServiceTest {
+
+    @Mock
+    private ChannelRepository channelRepository;
+
+    private ChannelMembershipService channelMembershipService;
+
+    @BeforeEach
+    void setUp() {
+        channelMembershipService = new ChannelMembershipService(channelRepository, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Множество предметов пользователя загружается один раз и сбрасывается при добавлении в предмет")
+    void isMember_CachesUntilInvalidated() {
+        UUID channelId = UUID.randomUUID();
+        UUID newChannelId = UUID.randomUUID();
+        when(channelRepository.findChannelIdsByUserId(1L))
+                .thenReturn(List.of(channelId))
+                .thenReturn(List.of(channelId, newChannelId));
+
+        assertTrue(channelMembershipService.isMember(channelId, 1L));
+        assertFalse(channelMembershipService.isMember(newChannelId, 1L));
+        verify(channelRepository, times(1)).findChannelIdsByUserId(1L);
+
+        channelMembershipService.invalidate(1L);
+
+        assertTrue(channelMembershipService.isMember(newChannelId, 1L));
+        verify(channelRepository, times(2)).findChannelIdsByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("В рамках запроса множество берется из атрибута запроса, удаление предмета сбрасывает его")
+    void isMember_RequestScoped() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        UUID channelId = UUID.randomUUID();
+        when(channelRepository.findChannelIdsByUserId(1L))
+                .thenReturn(List.of(channelId))
+                .thenReturn(List.of());
+
+        assertTrue(channelMembershipService.isMember(channelId, 1L));
+        assertTrue(channelMembershipService.isMember(channelId, 1L));
+        assertEquals(0, channelMembershipService.stats().hits());
+
+        channelMembershipService.invalidateChannel(channelId);
+
+        assertFalse(channelMembershipService.isMember(channelId, 1L));
+        verify(channelRepository, times(2)).findChannelIdsByUserId(1L);
+    }
+}
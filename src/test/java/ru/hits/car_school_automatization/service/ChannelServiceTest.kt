@@ -64,7 +64,12 @@ class ChannelServiceTest(
         on { store(any()) } doReturn "path"
     }
 
-    private val channelService = ChannelService(channelRepository, userRepository, fileStorageService, tokenProvider)
+    private val channelMembershipService = mock<ChannelMembershipService>()
+
+    private val gradeCache = mock<GradeCache>()
+
+    private val channelService =
+        ChannelService(channelRepository, userRepository, fileStorageService, tokenProvider, channelMembershipService, gradeCache)
 
     @Test
     fun `create channel with incorrect name`() {
@@ -184,6 +189,7 @@ class ChannelServiceTest(
         assert(channel.users.contains(userToAdd))
         verify(channelRepository).save(any())
         verify(userRepository, never()).save(any())
+        verify(gradeCache).invalidateChannelAggregates(channelId)
     }
 
     @Test
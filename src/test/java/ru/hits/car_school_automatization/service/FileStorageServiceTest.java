@@ -0,0 +1,193 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.hits.car_school_automatization.entity.FileBlob;
+import ru.hits.car_school_automatization.repository.FileBlobRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Счетчик ссылок хранилища по содержимому проверяется на настоящей БД: вставка в отдельной
+ * транзакции, удаление после коммита и блокировка строки без базы не воспроизводятся.
+ * Тестовая транзакция отключена, чтобы коммиты и afterCommit выполнялись как в работе.
+ */
+@DataJpaTest
+@Import(FileStorageService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileStorageServiceTest {
+
+    private static final Path UPLOAD_DIR = createUploadDir();
+
+    @DynamicPropertySource
+    static void fileProperties(DynamicPropertyRegistry registry) {
+        registry.add("file.path", UPLOAD_DIR::toString);
+        registry.add("file.content-addressed", () -> "true");
+    }
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @BeforeEach
+    void setUp() {
+        fileBlobRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Одинаковые загрузки хранятся одним файлом с числом ссылок по числу загрузок")
+    void store_SameContent_ShouldDeduplicate() {
+        String first = fileStorageService.store(file("handout.pdf", "same content"));
+        String second = fileStorageService.store(file("copy.pdf", "same content"));
+
+        assertEquals(first, second);
+        String name = nameOf(first);
+        assertEquals(2, refCount(name));
+        assertEquals(1, fileStorageService.listFiles(Instant.now().plusSeconds(60)).keySet().stream()
+                .filter(name::equals).count());
+    }
+
+    @Test
+    @DisplayName("Удаление последней ссылки убирает файл и счетчик, удаление не последней — нет")
+    void delete_LastReference_ShouldRemoveFileAndCounter() {
+        String name = nameOf(fileStorageService.store(file("a.pdf", "shared")));
+        fileStorageService.store(file("b.pdf", "shared"));
+
+        fileStorageService.delete(name);
+        assertEquals(1, refCount(name));
+        assertNotNull(fileStorageService.loadAsResource(name));
+
+        fileStorageService.delete(name);
+        assertTrue(fileBlobRepository.findById(name).isEmpty());
+        assertNull(fileStorageService.loadAsResource(name));
+    }
+
+    @Test
+    @DisplayName("retain на прежнем файле без счетчика заводит счетчик на две ссылки")
+    void retain_LegacyFileWithoutCounter_ShouldCountExistingOwner() throws IOException {
+        String name = UUID.randomUUID() + ".pdf";
+        Files.writeString(UPLOAD_DIR.resolve(name), "legacy");
+
+        fileStorageService.retain(name);
+        assertEquals(2, refCount(name));
+
+        fileStorageService.delete(name);
+        assertNotNull(fileStorageService.loadAsResource(name));
+
+        fileStorageService.delete(name);
+        assertNull(fileStorageService.loadAsResource(name));
+        assertTrue(fileBlobRepository.findById(name).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Параллельные удаление последней ссылки и повторная загрузка того же содержимого не теряют файл")
+    void storeAndDelete_Concurrently_ShouldKeepFile() throws Exception {
+        String name = nameOf(fileStorageService.store(file("race.pdf", "race")));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 20; i++) {
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> delete = executor.submit(() -> {
+                    start.await();
+                    fileStorageService.delete(name);
+                    return null;
+                });
+                Future<String> store = executor.submit(() -> {
+                    start.await();
+                    return fileStorageService.store(file("race.pdf", "race"));
+                });
+                start.countDown();
+                delete.get(10, TimeUnit.SECONDS);
+                assertEquals(name, nameOf(store.get(10, TimeUnit.SECONDS)));
+
+                assertEquals(1, refCount(name), "итерация " + i);
+                assertNotNull(fileStorageService.loadAsResource(name), "итерация " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("deleteOrphan удаляет старый файл без ссылок вместе со счетчиком")
+    void deleteOrphan_Unreferenced_ShouldDelete() throws IOException {
+        String name = nameOf(fileStorageService.store(file("orphan.pdf", "orphan")));
+        // Транзакция, сохранившая файл, откатилась: счетчик есть, ссылок нет
+        FileBlob blob = fileBlobRepository.findById(name).orElseThrow();
+        blob.setRefCount(0);
+        fileBlobRepository.save(blob);
+        makeOld(name);
+
+        assertEquals(-1, fileStorageService.deleteOrphan(name, Instant.now().minusSeconds(7200), n -> false));
+        assertEquals("orphan".length(), fileStorageService.deleteOrphan(name, Instant.now(), n -> false));
+
+        assertNull(fileStorageService.loadAsResource(name));
+        assertTrue(fileBlobRepository.findById(name).isEmpty());
+    }
+
+    @Test
+    @DisplayName("deleteOrphan не удаляет файл, на который под блокировкой нашлась ссылка или есть счетчик")
+    void deleteOrphan_ReferencedOrCounted_ShouldKeepFile() throws IOException {
+        String counted = nameOf(fileStorageService.store(file("copied.pdf", "copied")));
+        makeOld(counted);
+        String referenced = UUID.randomUUID() + ".pdf";
+        Files.writeString(UPLOAD_DIR.resolve(referenced), "referenced");
+        makeOld(referenced);
+
+        assertEquals(-1, fileStorageService.deleteOrphan(counted, Instant.now(), n -> false));
+        assertEquals(-1, fileStorageService.deleteOrphan(referenced, Instant.now(), referenced::equals));
+
+        assertNotNull(fileStorageService.loadAsResource(counted));
+        assertEquals(1, refCount(counted));
+        assertNotNull(fileStorageService.loadAsResource(referenced));
+    }
+
+    private void makeOld(String name) throws IOException {
+        Files.setLastModifiedTime(fileStorageService.loadAsResource(name),
+                FileTime.from(Instant.now().minusSeconds(3600)));
+    }
+
+    private int refCount(String name) {
+        return fileBlobRepository.findById(name).map(FileBlob::getRefCount).orElse(0);
+    }
+
+    private static MockMultipartFile file(String originalName, String content) {
+        return new MockMultipartFile("file", originalName, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String nameOf(String url) {
+        return url.substring(url.lastIndexOf("/file/") + "/file/".length());
+    }
+
+    private static Path createUploadDir() {
+        try {
+            return Files.createTempDirectory("file-storage-test");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeCacheTest {
+
+    private final UUID channelId = UUID.randomUUID();
+    private final UUID postId = UUID.randomUUID();
+    private final UUID otherPostId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Повторное чтение берется из кэша")
+    void get_SecondRead_IsHit() {
+        GradeCache cache = new GradeCache(100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> loads.incrementAndGet() * 1.0);
+        double value = cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> loads.incrementAndGet() * 1.0);
+
+        assertEquals(1.0, value);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("Сброс оценки пользователя не затрагивает других пользователей и другие посты")
+    void invalidateCell_IsPrecise() {
+        GradeCache cache = new GradeCache(100, Duration.ofMinutes(5));
+        cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> 1.0);
+        cache.get(GradeCache.Key.cell(channelId, postId, 2L), () -> 2.0);
+        cache.get(GradeCache.Key.cell(channelId, otherPostId, 1L), () -> 3.0);
+        cache.get(GradeCache.Key.channel(channelId, 1L), () -> 4.0);
+        cache.get(GradeCache.Key.channel(channelId, 2L), () -> 5.0);
+        cache.get(GradeCache.Key.table(channelId, null), () -> "table");
+
+        cache.invalidateCell(channelId, postId, 1L);
+
+        assertEquals(3, cache.stats().size());
+        assertEquals(3, cache.stats().invalidations());
+        assertEquals(2.0, read(cache, GradeCache.Key.cell(channelId, postId, 2L)));
+        assertEquals(3.0, read(cache, GradeCache.Key.cell(channelId, otherPostId, 1L)));
+        assertEquals(5.0, read(cache, GradeCache.Key.channel(channelId, 2L)));
+    }
+
+    @Test
+    @DisplayName("Изменение контрольной сбрасывает только итоговые оценки предмета")
+    void invalidateChannelAggregates_KeepsCells() {
+        GradeCache cache = new GradeCache(100, Duration.ofMinutes(5));
+        cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> 1.0);
+        cache.get(GradeCache.Key.channel(channelId, 1L), () -> 2.0);
+        cache.get(GradeCache.Key.table(channelId, 1L), () -> "table");
+
+        cache.invalidateChannelAggregates(channelId);
+
+        assertEquals(1, cache.stats().size());
+        assertEquals(1.0, read(cache, GradeCache.Key.cell(channelId, postId, 1L)));
+    }
+
+    @Test
+    @DisplayName("При переполнении вытесняется давно не читавшаяся запись")
+    void get_OverCapacity_EvictsLeastRecentlyUsed() {
+        GradeCache cache = new GradeCache(2, Duration.ofMinutes(5));
+        cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> 1.0);
+        cache.get(GradeCache.Key.cell(channelId, postId, 2L), () -> 2.0);
+        read(cache, GradeCache.Key.cell(channelId, postId, 1L));
+        cache.get(GradeCache.Key.cell(channelId, postId, 3L), () -> 3.0);
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(1.0, read(cache, GradeCache.Key.cell(channelId, postId, 1L)));
+        assertEquals(-1.0, read(cache, GradeCache.Key.cell(channelId, postId, 2L)));
+    }
+
+    @Test
+    @DisplayName("Запись устаревает по TTL")
+    void get_AfterTtl_Reloads() {
+        GradeCache cache = new GradeCache(100, Duration.ZERO);
+        cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> 1.0);
+        Double value = cache.get(GradeCache.Key.cell(channelId, postId, 1L), () -> 2.0);
+
+        assertEquals(2.0, value);
+        assertEquals(0, cache.stats().hits());
+    }
+
+    private Double read(GradeCache cache, GradeCache.Key key) {
+        return cache.get(key, () -> -1.0);
+    }
+}
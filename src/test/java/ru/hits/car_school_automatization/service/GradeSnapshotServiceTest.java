@@ -0,0 +1,214 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hits.car_school_automatization.entity.*;
+import ru.hits.car_school_automatization.enums.DeadlinePenaltyUnit;
+import ru.hits.car_school_automatization.enums.GradeTargetType;
+import ru.hits.car_school_automatization.enums.MetricType;
+import ru.hits.car_school_automatization.enums.PostType;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.repository.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GradeSnapshotServiceTest {
+
+    @Mock
+    private GradeSnapshotRepository gradeSnapshotRepository;
+    @Mock
+    private GradeSnapshotTargetRepository gradeSnapshotTargetRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private P2PParamRepository p2pParamRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ChannelGradeLoader channelGradeLoader;
+
+    private GradeSnapshotService gradeSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        gradeSnapshotService = new GradeSnapshotService(gradeSnapshotRepository, gradeSnapshotTargetRepository, postRepository, taskRepository,
+                p2pParamRepository, userRepository, channelGradeLoader,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(gradeSnapshotService, "enabled", true);
+        ReflectionTestUtils.setField(gradeSnapshotService, "batchSize", 500);
+    }
+
+    @Test
+    @DisplayName("Из снимка читается только актуальная и уже не зависящая от времени оценка")
+    void findFresh_IgnoresStaleAndUnsettledSnapshots() {
+        UUID targetId = UUID.randomUUID();
+        when(gradeSnapshotRepository.findByTargetIdAndUserId(targetId, 1L))
+                .thenReturn(Optional.of(snapshot(targetId, 1L, 7.5, false)));
+        when(gradeSnapshotRepository.findByTargetIdAndUserId(targetId, 2L))
+                .thenReturn(Optional.of(snapshot(targetId, 2L, 7.5, true)));
+        when(gradeSnapshotRepository.findByTargetIdAndUserId(targetId, 3L))
+                .thenReturn(Optional.of(snapshot(targetId, 3L, null, false)));
+        when(gradeSnapshotRepository.findByTargetIdAndUserId(targetId, 4L))
+                .thenReturn(Optional.empty());
+
+        assertEquals(OptionalDouble.of(7.5), gradeSnapshotService.findFresh(targetId, 1L));
+        assertTrue(gradeSnapshotService.findFresh(targetId, 2L).isEmpty());
+        assertTrue(gradeSnapshotService.findFresh(targetId, 3L).isEmpty());
+        assertTrue(gradeSnapshotService.findFresh(targetId, 4L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Для завершенного поста создаются снимки; оценка с растущим штрафом не фиксируется")
+    @SuppressWarnings("unchecked")
+    void refresh_CreatesSnapshotsForFinishedPost() {
+        Instant now = Instant.now();
+        UUID channelId = UUID.randomUUID();
+        Post post = Post.builder()
+                .id(UUID.randomUUID())
+                .channelId(channelId)
+                .type(PostType.TASK)
+                .deadline(LocalDateTime.ofInstant(now.minusSeconds(86400 / 2), ZoneOffset.UTC))
+                .deadlinePenalty(DeadlinePenalty.builder().unit(DeadlinePenaltyUnit.DAY).step(1).value(1.0).build())
+                .build();
+        Metric mark = Metric.builder()
+                .id(UUID.randomUUID())
+                .postId(post.getId())
+                .type(MetricType.MARK)
+                .minValue(0.0)
+                .maxValue(10.0)
+                .build();
+        User submitted = User.builder().id(1L).role(List.of(Role.STUDENT)).build();
+        User missing = User.builder().id(2L).role(List.of(Role.STUDENT)).build();
+        List<User> students = List.of(submitted, missing);
+
+        ChannelGradeData data = ChannelGradeData.builder()
+                .channelId(channelId)
+                .students(students)
+                .taskPosts(List.of(post))
+                .metrics(List.of(mark))
+                .metricValues(List.of(
+                        MetricValue.builder().metricId(mark.getId()).userId(1L).value(9.0).build(),
+                        MetricValue.builder().metricId(mark.getId()).userId(2L).value(8.0).build()))
+                .solutions(List.of(Solution.builder()
+                        .taskId(post.getId())
+                        .studentId(1L)
+                        .submittedAt(LocalDateTime.ofInstant(now.minusSeconds(86400), ZoneOffset.UTC))
+                        .build()))
+                .now(now)
+                .build();
+
+        when(gradeSnapshotRepository.findByStaleTrue(any())).thenReturn(List.of());
+        when(postRepository.findUnsnapshottedByTypeAndDeadlineBefore(eq(PostType.TASK), any())).thenReturn(List.of(post));
+        when(taskRepository.findUnsnapshottedWithAllTeamDeadlinesBefore(any())).thenReturn(List.of());
+        when(gradeSnapshotRepository.findSnapshotTargetIds(anyCollection())).thenReturn(Set.of());
+        when(p2pParamRepository.findAllById(anyList())).thenReturn(List.of());
+        when(channelGradeLoader.loadStudents(channelId)).thenReturn(students);
+        when(channelGradeLoader.load(channelId, students)).thenReturn(data);
+
+        gradeSnapshotService.refresh();
+
+        ArgumentCaptor<List<GradeSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(gradeSnapshotRepository).saveAll(captor.capture());
+        Map<Long, GradeSnapshot> byUser = captor.getValue().stream()
+                .collect(Collectors.toMap(GradeSnapshot::getUserId, Function.identity()));
+
+        assertEquals(2, byUser.size());
+        assertEquals(9.0, byUser.get(1L).getValue());
+        assertNull(byUser.get(2L).getValue());
+        assertEquals(GradeTargetType.POST_TASK, byUser.get(1L).getTargetType());
+        assertFalse(byUser.get(1L).isStale());
+    }
+
+    @Test
+    @DisplayName("Снимки задания, которое снова открыто, удаляются при пересчете")
+    void refresh_DeletesSnapshotsOfReopenedPost() {
+        UUID channelId = UUID.randomUUID();
+        Post post = Post.builder()
+                .id(UUID.randomUUID())
+                .channelId(channelId)
+                .type(PostType.TASK)
+                .deadline(LocalDateTime.now(ZoneOffset.UTC).plusDays(1))
+                .build();
+        GradeSnapshot stale = snapshot(post.getId(), 1L, 5.0, true);
+
+        when(gradeSnapshotRepository.findByStaleTrue(any())).thenReturn(List.of(stale));
+        when(gradeSnapshotRepository.findByTargetId(post.getId())).thenReturn(List.of(stale));
+        when(postRepository.findById(post.getId())).thenReturn(Optional.of(post));
+        when(postRepository.findUnsnapshottedByTypeAndDeadlineBefore(eq(PostType.TASK), any())).thenReturn(List.of());
+        when(taskRepository.findUnsnapshottedWithAllTeamDeadlinesBefore(any())).thenReturn(List.of());
+
+        gradeSnapshotService.refresh();
+
+        verify(gradeSnapshotRepository).deleteByTargetId(post.getId());
+    }
+
+    @Test
+    @DisplayName("Задание предмета без студентов отмечается обработанным и больше не ищется")
+    void refresh_MarksTargetOfChannelWithoutStudents() {
+        UUID channelId = UUID.randomUUID();
+        Post post = Post.builder()
+                .id(UUID.randomUUID())
+                .channelId(channelId)
+                .type(PostType.TASK)
+                .deadline(LocalDateTime.now(ZoneOffset.UTC).minusDays(1))
+                .build();
+
+        when(gradeSnapshotRepository.findByStaleTrue(any())).thenReturn(List.of());
+        when(postRepository.findUnsnapshottedByTypeAndDeadlineBefore(eq(PostType.TASK), any())).thenReturn(List.of(post));
+        when(taskRepository.findUnsnapshottedWithAllTeamDeadlinesBefore(any())).thenReturn(List.of());
+        when(gradeSnapshotRepository.findSnapshotTargetIds(anyCollection())).thenReturn(Set.of());
+        when(p2pParamRepository.findAllById(anyList())).thenReturn(List.of());
+        when(channelGradeLoader.loadStudents(channelId)).thenReturn(List.of());
+
+        gradeSnapshotService.refresh();
+
+        ArgumentCaptor<List<GradeSnapshotTarget>> captor = ArgumentCaptor.forClass(List.class);
+        verify(gradeSnapshotTargetRepository).saveAll(captor.capture());
+        assertEquals(List.of(post.getId()), captor.getValue().stream().map(GradeSnapshotTarget::getTargetId).toList());
+        verify(gradeSnapshotRepository, never()).saveAll(any());
+    }
+
+    private GradeSnapshot snapshot(UUID targetId, Long userId, Double value, boolean stale) {
+        return GradeSnapshot.builder()
+                .id(UUID.randomUUID())
+                .channelId(UUID.randomUUID())
+                .targetId(targetId)
+                .targetType(GradeTargetType.POST_TASK)
+                .userId(userId)
+                .value(value)
+                .stale(stale)
+                .computedAt(Instant.now())
+                .build();
+    }
+}
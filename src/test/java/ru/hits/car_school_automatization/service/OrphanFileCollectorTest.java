@@ -0,0 +1,112 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hits.car_school_automatization.repository.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrphanFileCollectorTest {
+
+    @Mock
+    private FileStorageService fileStorageService;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private SolutionRepository solutionRepository;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private TaskSolutionRepository taskSolutionRepository;
+    @Mock
+    private ChannelRepository channelRepository;
+
+    private OrphanFileCollector orphanFileCollector;
+
+    @BeforeEach
+    void setUp() {
+        orphanFileCollector = new OrphanFileCollector(fileStorageService, postRepository, solutionRepository,
+                taskRepository, taskSolutionRepository, channelRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(orphanFileCollector, "enabled", true);
+        ReflectionTestUtils.setField(orphanFileCollector, "dryRun", false);
+        ReflectionTestUtils.setField(orphanFileCollector, "gracePeriod", Duration.ofHours(24));
+        ReflectionTestUtils.setField(orphanFileCollector, "maxDeletes", 1000);
+    }
+
+    @Test
+    @DisplayName("Удаляются только файлы, на которые не ссылается ни одна сущность")
+    void collect_DeletesOnlyUnreferencedFiles() {
+        mockStoredFiles();
+        when(fileStorageService.deleteOrphan(eq("orphan.pdf"), any(Instant.class), any())).thenReturn(30L);
+
+        OrphanFileCollector.Result result = orphanFileCollector.collect();
+
+        assertEquals(6, result.scanned());
+        assertEquals(1, result.orphans());
+        assertEquals(1, result.deleted());
+        assertEquals(30L, result.bytesFreed());
+        verify(fileStorageService, never()).deleteOrphan(eq("post.pdf"), any(Instant.class), any());
+        verify(fileStorageService, never()).deleteOrphan(eq("image.png"), any(Instant.class), any());
+
+        OrphanFileCollector.Stats stats = orphanFileCollector.stats();
+        assertEquals(1, stats.deleted());
+        assertEquals(30L, stats.bytesFreed());
+    }
+
+    @Test
+    @DisplayName("В режиме dry-run файлы без ссылок находятся, но не удаляются")
+    void collect_WhenDryRun_ShouldNotDelete() {
+        ReflectionTestUtils.setField(orphanFileCollector, "dryRun", true);
+        mockStoredFiles();
+
+        OrphanFileCollector.Result result = orphanFileCollector.collect();
+
+        assertTrue(result.dryRun());
+        assertEquals(1, result.orphans());
+        assertEquals(0, result.deleted());
+        verify(fileStorageService, never()).deleteOrphan(anyString(), any(Instant.class), any());
+        assertEquals(1, orphanFileCollector.stats().orphans());
+    }
+
+    private void mockStoredFiles() {
+        Map<String, Long> files = new HashMap<>(Map.of(
+                "post.pdf", 10L,
+                "solution.pdf", 10L,
+                "task.docx", 10L,
+                "team.zip", 10L,
+                "image.png", 10L,
+                "orphan.pdf", 30L));
+        when(fileStorageService.listFiles(any(Instant.class))).thenReturn(files);
+        when(postRepository.streamFileUrls()).thenReturn(Stream.of(url("post.pdf")));
+        when(solutionRepository.streamFileUrls()).thenReturn(Stream.of(url("solution.pdf"), url("missing.pdf")));
+        when(taskRepository.streamFileUrls()).thenReturn(Stream.of(url("task.docx")));
+        when(taskSolutionRepository.streamFileUrls()).thenReturn(Stream.of(url("team.zip")));
+        when(channelRepository.streamImages()).thenReturn(Stream.of(url("image.png")));
+    }
+
+    private String url(String name) {
+        return "http://localhost:8080/file/" + name;
+    }
+}
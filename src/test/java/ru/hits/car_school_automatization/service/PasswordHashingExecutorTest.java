@@ -0,0 +1,83 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+    private final ExecutorService requestThreads = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        requestThreads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Хеширование выполняется в пуле, результат возвращается вызывающему потоку")
+    void execute_ReturnsResult() {
+        assertEquals("hash", executor.execute(() -> "hash"));
+        assertEquals(1, executor.stats().completed());
+    }
+
+    @Test
+    @DisplayName("При заполненной очереди запрос сразу отклоняется с 429")
+    void execute_RejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }), requestThreads);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "second"), requestThreads);
+        while (executor.stats().queueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> executor.execute(() -> "third"));
+        assertEquals(1, executor.stats().rejected());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Если хеш не получен за timeout, запрос отклоняется с 429")
+    void execute_RejectsOnTimeout() {
+        PasswordHashingExecutor shortWait = new PasswordHashingExecutor(1, 1, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertThrows(TooManyRequestsException.class, () -> shortWait.execute(() -> {
+                await(release);
+                return "hash";
+            }));
+            assertEquals(1, shortWait.stats().rejected());
+        } finally {
+            release.countDown();
+            shortWait.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.hits.car_school_automatization.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    @DisplayName("После исчерпания корзины запросы пользователя отклоняются, другие пользователи и группы не затронуты")
+    void tryAcquire_RejectsWhenBucketIsEmpty() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("rate-limit.groups.solutions.capacity", "3")
+                .withProperty("rate-limit.groups.solutions.refill-per-second", "0.001");
+        RateLimiter rateLimiter = new RateLimiter(environment, new SimpleMeterRegistry(), true, 20, 5);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire("solutions", 1L));
+        }
+        assertFalse(rateLimiter.tryAcquire("solutions", 1L));
+        assertTrue(rateLimiter.tryAcquire("solutions", 2L));
+        assertTrue(rateLimiter.tryAcquire("metric-values", 1L));
+
+        assertEquals(1L, rateLimiter.rejections().get("solutions"));
+        assertNull(rateLimiter.rejections().get("metric-values"));
+    }
+
+    @Test
+    @DisplayName("Корзина пополняется со временем")
+    void tryAcquire_RefillsOverTime() throws InterruptedException {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("rate-limit.groups.votes.capacity", "1")
+                .withProperty("rate-limit.groups.votes.refill-per-second", "50");
+        RateLimiter rateLimiter = new RateLimiter(environment, new SimpleMeterRegistry(), true, 20, 5);
+
+        assertTrue(rateLimiter.tryAcquire("votes", 1L));
+        assertFalse(rateLimiter.tryAcquire("votes", 1L));
+        Thread.sleep(50);
+        assertTrue(rateLimiter.tryAcquire("votes", 1L));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.hits.car_school_automatization.entity.Channel;
+import ru.hits.car_school_automatization.entity.Task;
+import ru.hits.car_school_automatization.entity.TaskDocument;
+import ru.hits.car_school_automatization.entity.TaskSolution;
+import ru.hits.car_school_automatization.entity.Team;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.exception.ForbiddenException;
+import ru.hits.car_school_automatization.repository.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SolutionArchiveServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private TaskSolutionRepository taskSolutionRepository;
+    @Mock
+    private SolutionRepository solutionRepository;
+    @Mock
+    private TeamRepository teamRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ChannelMembershipService channelMembershipService;
+    @Mock
+    private FileStorageService fileStorageService;
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    @InjectMocks
+    private SolutionArchiveService solutionArchiveService;
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    @DisplayName("Архив задания раскладывает файлы по командам и студентам, одинаковые имена не затираются")
+    void planTaskArchive_GroupsByTeamAndStudent() throws Exception {
+        UUID channelId = UUID.randomUUID();
+        Task task = Task.builder()
+                .id(UUID.randomUUID())
+                .channel(new Channel(channelId, "Предмет", null, null, new HashSet<>(), User.builder().id(1L).build()))
+                .build();
+        Team team = Team.builder().id(UUID.randomUUID()).name("Команда/1").build();
+        User teacher = User.builder().id(1L).role(List.of(Role.TEACHER)).build();
+        User student = User.builder().id(2L).firstName("Иван").lastName("Петров").role(List.of(Role.STUDENT)).build();
+
+        TaskSolution first = solution(team.getId(), 2L, document("report.pdf", "a.pdf"), document("report.pdf", "b.pdf"));
+        TaskSolution other = solution(team.getId(), 2L, document("lost.pdf", "missing.pdf"));
+
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(tokenProvider.extractUserIdFromHeader("Bearer t")).thenReturn(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(channelMembershipService.isMember(channelId, 1L)).thenReturn(true);
+        when(taskSolutionRepository.findByTaskId(task.getId())).thenReturn(List.of(first, other));
+        when(teamRepository.findAllById(anyList())).thenReturn(List.of(team));
+        when(userRepository.findAllById(anyList())).thenReturn(List.of(student));
+
+        List<SolutionArchiveService.Entry> entries =
+                solutionArchiveService.planTaskArchive(task.getId(), false, null, "Bearer t");
+
+        assertEquals(List.of(
+                "Команда_1/Петров Иван (2)/report.pdf",
+                "Команда_1/Петров Иван (2)/report (2).pdf",
+                "Команда_1/Петров Иван (2)/lost.pdf"
+        ), entries.stream().map(SolutionArchiveService.Entry::path).toList());
+
+        Files.writeString(uploadDir.resolve("a.pdf"), "первый");
+        Files.writeString(uploadDir.resolve("b.pdf"), "второй");
+        when(fileStorageService.loadAsResource("a.pdf")).thenReturn(uploadDir.resolve("a.pdf"));
+        when(fileStorageService.loadAsResource("b.pdf")).thenReturn(uploadDir.resolve("b.pdf"));
+        when(fileStorageService.loadAsResource("missing.pdf")).thenReturn(null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        solutionArchiveService.write(entries, out);
+
+        Map<String, String> archive = unzip(out.toByteArray());
+        assertEquals("первый", archive.get("Команда_1/Петров Иван (2)/report.pdf"));
+        assertEquals("второй", archive.get("Команда_1/Петров Иван (2)/report (2).pdf"));
+        assertEquals("Команда_1/Петров Иван (2)/lost.pdf", archive.get("_missing.txt"));
+        assertEquals(3, archive.size());
+    }
+
+    @Test
+    @DisplayName("Студент не может скачать архив решений")
+    void planTaskArchive_WhenStudent_ShouldThrowForbidden() {
+        UUID channelId = UUID.randomUUID();
+        Task task = Task.builder()
+                .id(UUID.randomUUID())
+                .channel(new Channel(channelId, "Предмет", null, null, new HashSet<>(), User.builder().id(1L).build()))
+                .build();
+
+        when(taskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(tokenProvider.extractUserIdFromHeader("Bearer t")).thenReturn(2L);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(User.builder().id(2L).role(List.of(Role.STUDENT)).build()));
+
+        assertThrows(ForbiddenException.class,
+                () -> solutionArchiveService.planTaskArchive(task.getId(), false, null, "Bearer t"));
+    }
+
+    private TaskSolution solution(UUID teamId, Long studentId, TaskDocument... documents) {
+        return TaskSolution.builder()
+                .id(UUID.randomUUID())
+                .teamId(teamId)
+                .studentId(studentId)
+                .documents(new ArrayList<>(List.of(documents)))
+                .build();
+    }
+
+    private TaskDocument document(String fileName, String storedName) {
+        return TaskDocument.builder().fileName(fileName).fileUrl("http://localhost:8080/file/" + storedName).build();
+    }
+
+    private Map<String, String> unzip(byte[] bytes) throws Exception {
+        Map<String, String> result = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                result.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+}
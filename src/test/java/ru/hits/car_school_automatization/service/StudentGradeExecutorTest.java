@@ -0,0 +1,50 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.exception.ForbiddenException;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentGradeExecutorTest {
+
+    @Test
+    @DisplayName("Параллельный режим возвращает результаты в порядке входа")
+    void map_Parallel_KeepsOrder() throws Exception {
+        StudentGradeExecutor executor = new StudentGradeExecutor(true);
+        List<Integer> items = IntStream.range(0, 200).boxed().toList();
+
+        List<Integer> results = executor.map(items, i -> {
+            sleep((200 - i) % 7);
+            return i * 2;
+        });
+
+        assertEquals(items.stream().map(i -> i * 2).toList(), results);
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("Исключение расчета пробрасывается без обертки")
+    void map_Parallel_RethrowsRuntimeException() throws Exception {
+        StudentGradeExecutor executor = new StudentGradeExecutor(true);
+
+        assertThrows(ForbiddenException.class, () -> executor.map(List.of(1, 2, 3), i -> {
+            if (i == 2) {
+                throw new ForbiddenException("Недостаточно прав для просмотра оценки");
+            }
+            return i;
+        }));
+        executor.destroy();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
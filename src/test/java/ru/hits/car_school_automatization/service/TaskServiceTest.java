@@ -4,8 +4,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
 import ru.hits.car_school_automatization.dto.CreateTaskDto;
@@ -29,6 +31,7 @@ import ru.hits.car_school_automatization.repository.TaskRepository;
 import ru.hits.car_school_automatization.repository.TeamRepository;
 import ru.hits.car_school_automatization.repository.UserRepository;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -76,6 +79,16 @@ class TaskServiceTest {
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private GradeSnapshotService gradeSnapshotService;
+
+    @Mock
+    private GradeCache gradeCache;
+
+    // состав предметов в тестах уже в памяти, поэтому проверка членства идет по нему без репозитория
+    @Spy
+    private ChannelMembershipService channelMembershipService = new ChannelMembershipService(null, 0, Duration.ZERO);
+
     @InjectMocks
     private TaskService taskService;
 
@@ -252,6 +265,7 @@ class TaskServiceTest {
         taskService.deleteTask(taskId, authHeader);
 
         verify(taskRepository).delete(existingTask);
+        verify(gradeSnapshotService).deleteTarget(taskId);
     }
 
     @Test
@@ -381,6 +395,7 @@ class TaskServiceTest {
 
         assertNotNull(result);
         verify(taskMapper).updateTaskFromDto(dto, existingTask);
+        verify(gradeCache).invalidateTarget(channelId, taskId);
         verify(taskRepository).save(existingTask);
     }
 
@@ -432,6 +447,37 @@ class TaskServiceTest {
         verify(taskRepository).save(any(Task.class));
     }
 
+    @Test
+    @DisplayName("copyTask: копия ссылается на те же файлы без повторной загрузки")
+    void copyTask_ShouldRetainDocumentsWithoutStoring() {
+        UUID targetChannelId = UUID.randomUUID();
+        Channel targetChannel = new Channel(
+                targetChannelId,
+                "Target",
+                "Desc",
+                null,
+                new HashSet<>(Set.of(teacher)),
+                teacher
+        );
+        existingTask.setDocuments(new ArrayList<>(List.of(
+                TaskDocument.builder().fileName("a.pdf").fileUrl("http://localhost:8080/file/hash-a.pdf").build()
+        )));
+
+        when(taskRepository.findById(taskId)).thenReturn(Optional.of(existingTask));
+        when(channelRepository.findById(targetChannelId)).thenReturn(Optional.of(targetChannel));
+        when(tokenProvider.extractUserIdFromHeader(authHeader)).thenReturn(teacherId);
+        when(userRepository.findById(teacherId)).thenReturn(Optional.of(teacher));
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        taskService.copyTask(taskId, targetChannelId, authHeader);
+
+        ArgumentCaptor<Task> captor = ArgumentCaptor.forClass(Task.class);
+        verify(taskRepository).save(captor.capture());
+        assertEquals("http://localhost:8080/file/hash-a.pdf", captor.getValue().getDocuments().get(0).getFileUrl());
+        verify(fileStorageService).retain("hash-a.pdf");
+        verify(fileStorageService, never()).store(any());
+    }
+
     @Test
     @DisplayName("copyTask: несуществующий целевой предмет возвращает NotFound")
     void copyTask_WhenTargetChannelNotFound_ShouldThrowNotFound() {
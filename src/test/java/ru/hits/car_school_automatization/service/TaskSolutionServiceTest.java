@@ -0,0 +1,135 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.hits.car_school_automatization.dto.CreateTaskSolutionDto;
+import ru.hits.car_school_automatization.entity.Channel;
+import ru.hits.car_school_automatization.entity.Task;
+import ru.hits.car_school_automatization.entity.TaskSolution;
+import ru.hits.car_school_automatization.entity.Team;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.exception.BadRequestException;
+import ru.hits.car_school_automatization.repository.TaskRepository;
+import ru.hits.car_school_automatization.repository.TaskSolutionRepository;
+import ru.hits.car_school_automatization.repository.TeamRepository;
+import ru.hits.car_school_automatization.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSolutionServiceTest {
+
+    @Mock
+    private TeamRepository teamRepository;
+
+    @Mock
+    private TaskSolutionRepository taskSolutionRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private GradeSnapshotService gradeSnapshotService;
+
+    @Mock
+    private GradeCache gradeCache;
+
+    @Spy
+    private ChannelMembershipService channelMembershipService = new ChannelMembershipService(null, 0, Duration.ZERO);
+
+    @InjectMocks
+    private TaskSolutionService taskSolutionService;
+
+    private UUID channelId;
+    private UUID taskId;
+    private Long studentId;
+    private String authHeader;
+    private Task task;
+    private Team team;
+
+    @BeforeEach
+    void setUp() {
+        channelId = UUID.randomUUID();
+        taskId = UUID.randomUUID();
+        studentId = 20L;
+        authHeader = "Bearer token";
+
+        User student = User.builder()
+                .id(studentId)
+                .role(List.of(Role.STUDENT))
+                .build();
+        User teacher = User.builder()
+                .id(10L)
+                .role(List.of(Role.TEACHER))
+                .build();
+        Channel channel = new Channel(channelId, "Channel", "Desc", null, new HashSet<>(Set.of(teacher, student)), teacher);
+        task = Task.builder()
+                .id(taskId)
+                .channel(channel)
+                .build();
+        team = Team.builder()
+                .id(UUID.randomUUID())
+                .task(task)
+                .build();
+
+        when(tokenProvider.extractUserIdFromHeader(authHeader)).thenReturn(studentId);
+        when(userRepository.findById(studentId)).thenReturn(Optional.of(student));
+        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(teamRepository.findByTask_IdAndUsers_Id(taskId, studentId)).thenReturn(Optional.of(team));
+    }
+
+    @Test
+    @DisplayName("create: сдача решения командой сбрасывает кэш оценок и снимки задания")
+    void create_ShouldInvalidateTaskGrades() {
+        when(fileStorageService.store(any())).thenReturn("http://localhost:8080/file/solution.pdf");
+        when(taskSolutionRepository.save(any(TaskSolution.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateTaskSolutionDto dto = new CreateTaskSolutionDto();
+        dto.setDocuments(List.of(new MockMultipartFile("file", "solution.pdf", "application/pdf", new byte[]{1})));
+
+        taskSolutionService.create(taskId, dto, authHeader);
+
+        verify(gradeCache).invalidateTarget(channelId, taskId);
+        verify(gradeSnapshotService).markTargetStale(taskId);
+    }
+
+    @Test
+    @DisplayName("create: повторная сдача отклоняется без сброса кэша оценок")
+    void create_WhenAlreadySubmitted_ShouldNotInvalidate() {
+        when(taskSolutionRepository.existsByTaskIdAndStudentId(taskId, studentId)).thenReturn(true);
+
+        assertThrows(BadRequestException.class,
+                () -> taskSolutionService.create(taskId, new CreateTaskSolutionDto(), authHeader));
+
+        verify(gradeCache, never()).invalidateTarget(any(), any());
+        verify(gradeSnapshotService, never()).markTargetStale(any());
+    }
+}
@@ -0,0 +1,62 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPrincipalCacheTest {
+
+    @Test
+    @DisplayName("Повторная аутентификация не обращается к БД, сброс подхватывает новые роли")
+    void get_CachesUntilInvalidated() {
+        UserPrincipalCache cache = new UserPrincipalCache(100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        List<Role> roles = new ArrayList<>(List.of(Role.STUDENT));
+        Function<Long, Optional<User>> loader = id -> {
+            loads.incrementAndGet();
+            return Optional.of(User.builder().id(id).passwordHash("hash").role(List.copyOf(roles)).channels(Set.of()).build());
+        };
+
+        User first = cache.get(1L, loader).orElseThrow();
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertEquals(1, loads.get());
+        assertNull(first.getPasswordHash());
+        assertNull(first.getChannels());
+        assertEquals(2.0 / 3, cache.stats().hitRate(), 1e-9);
+
+        roles.add(Role.TEACHER);
+        cache.invalidate(1L);
+
+        assertEquals(List.of(Role.STUDENT, Role.TEACHER), cache.get(1L, loader).orElseThrow().getRole());
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("Размер кэша ограничен, отсутствующий пользователь не кэшируется")
+    void get_IsBounded() {
+        UserPrincipalCache cache = new UserPrincipalCache(2, Duration.ofMinutes(5));
+        Function<Long, Optional<User>> loader = id -> Optional.of(User.builder().id(id).role(List.of(Role.STUDENT)).build());
+
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(3L, loader);
+        assertTrue(cache.get(4L, id -> Optional.empty()).isEmpty());
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+}
@@ -0,0 +1,115 @@
+package ru.hits.car_school_automatization.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.hits.car_school_automatization.dto.UserDto;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+import ru.hits.car_school_automatization.mapper.UserMapper;
+import ru.hits.car_school_automatization.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Mock
+    private ChannelMembershipService channelMembershipService;
+
+    @Mock
+    private GradeCache gradeCache;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .id(1L)
+                .role(List.of(Role.STUDENT, Role.TEACHER))
+                .build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("updateUser: те же роли в другом порядке и с повторами не отзывают токены")
+    void updateUser_SameRolesInOtherOrder_ShouldNotRevoke() {
+        userService.updateUser(1L, updateDto(List.of(Role.TEACHER, Role.STUDENT, Role.TEACHER)));
+
+        verify(tokenRevocationRegistry, never()).revoke(anyLong());
+        verify(userPrincipalCache).invalidate(1L);
+        verify(gradeCache, never()).invalidateChannelAggregates(any());
+    }
+
+    @Test
+    @DisplayName("updateUser: изменение набора ролей отзывает токены пользователя")
+    void updateUser_RolesChanged_ShouldRevoke() {
+        UUID channelId = UUID.randomUUID();
+        when(channelMembershipService.channelIdsOf(1L)).thenReturn(Set.of(channelId));
+
+        userService.updateUser(1L, updateDto(List.of(Role.STUDENT)));
+
+        verify(tokenRevocationRegistry).revoke(1L);
+        verify(gradeCache).invalidateChannelAggregates(channelId);
+    }
+
+    @Test
+    @DisplayName("removeRole: снятая роль студента сбрасывает агрегаты оценок во всех предметах пользователя")
+    void removeRole_ShouldInvalidateChannelGrades() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(channelMembershipService.channelIdsOf(1L)).thenReturn(Set.of(first, second));
+
+        userService.removeRole(1L, new UserDto.RoleOperation(Role.STUDENT));
+
+        verify(gradeCache).invalidateChannelAggregates(first);
+        verify(gradeCache).invalidateChannelAggregates(second);
+    }
+
+    private UserDto.UpdateUser updateDto(List<Role> roles) {
+        UserDto.UpdateUser dto = new UserDto.UpdateUser();
+        dto.setFirstName("Иван");
+        dto.setLastName("Иванов");
+        dto.setAge(20);
+        dto.setPhone("+79990000000");
+        dto.setEmail("ivan@example.com");
+        dto.setRole(roles);
+        return dto;
+    }
+}
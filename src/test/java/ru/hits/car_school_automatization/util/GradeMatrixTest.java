@@ -0,0 +1,89 @@
+package ru.hits.car_school_automatization.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.entity.Metric;
+import ru.hits.car_school_automatization.enums.MetricType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GradeMatrixTest {
+
+    @Test
+    @DisplayName("Отсутствующее значение заменяется minValue критерия")
+    void computeRow_MissingValue_UsesMinValue() {
+        List<Metric> metrics = List.of(metric(MetricType.MARK, 4.0), metric(MetricType.MARK, 0.0));
+
+        double grade = GradeMatrix.of(metrics).computeRow(new double[]{Double.NaN, 8.0}, 0);
+
+        assertEquals(6.0, grade);
+    }
+
+    @Test
+    @DisplayName("Матрица дает побитово те же оценки, что и расчет через DoubleStream")
+    void compute_MatchesBoxedCalculation() {
+        Random random = new Random(42);
+        MetricType[] types = MetricType.values();
+
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            List<Metric> metrics = new ArrayList<>();
+            int metricCount = 1 + random.nextInt(8);
+            for (int m = 0; m < metricCount; m++) {
+                metrics.add(metric(types[random.nextInt(types.length)], random.nextDouble()));
+            }
+
+            int rows = 1 + random.nextInt(5);
+            double[] values = new double[rows * metricCount];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(5) == 0 ? Double.NaN : random.nextDouble() * 100;
+            }
+
+            double[] grades = new double[rows];
+            GradeMatrix.of(metrics).compute(values, rows, grades);
+
+            for (int row = 0; row < rows; row++) {
+                assertEquals(Double.doubleToLongBits(boxed(metrics, values, row * metricCount)),
+                        Double.doubleToLongBits(grades[row]));
+            }
+        }
+    }
+
+    private double boxed(List<Metric> metrics, double[] values, int offset) {
+        List<Double> markValues = new ArrayList<>();
+        List<Double> constraints = new ArrayList<>();
+        double coefficientProduct = 1.0;
+        for (int m = 0; m < metrics.size(); m++) {
+            Metric metric = metrics.get(m);
+            double value = Double.isNaN(values[offset + m]) ? metric.getMinValue() : values[offset + m];
+            if (metric.getType() == MetricType.MARK) {
+                markValues.add(value);
+            } else if (metric.getType() == MetricType.COEFFICIENT) {
+                coefficientProduct *= value;
+            } else if (metric.getType() == MetricType.CONSTRAINT) {
+                constraints.add(value);
+            }
+        }
+        double base = markValues.isEmpty() ? 0.0 : markValues.stream().mapToDouble(Double::doubleValue).sum() / markValues.size();
+        double result = base * coefficientProduct;
+        for (Double limit : constraints) {
+            if (result > limit) {
+                result = limit;
+            }
+        }
+        return result;
+    }
+
+    private Metric metric(MetricType type, double minValue) {
+        return Metric.builder()
+                .id(UUID.randomUUID())
+                .type(type)
+                .minValue(minValue)
+                .maxValue(100.0)
+                .build();
+    }
+}
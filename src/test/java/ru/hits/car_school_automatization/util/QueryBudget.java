@@ -0,0 +1,39 @@
+package ru.hits.car_school_automatization.util;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Проверка числа SQL-запросов в тестах на H2: действие выполняется в текущем потоке
+ * (MockMvc, вызов сервиса), запросы считаются через {@link QueryCounter}.
+ * <pre>
+ * QueryBudget.assertAtMost(20, () -&gt; mockMvc.perform(get("/api/grades/channel/{id}/table", id)));
+ * </pre>
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Выполняет действие и возвращает число SQL-запросов и загруженных сущностей
+     */
+    public static QueryCounter.Counts measure(Callable<?> action) throws Exception {
+        QueryCounter.Counts start = QueryCounter.snapshot();
+        action.call();
+        return QueryCounter.snapshot().minus(start);
+    }
+
+    /**
+     * Выполняет действие и проверяет, что оно выполнило не более maxStatements SQL-запросов
+     *
+     * @return фактическое число запросов и сущностей
+     */
+    public static QueryCounter.Counts assertAtMost(long maxStatements, Callable<?> action) throws Exception {
+        QueryCounter.Counts counts = measure(action);
+        if (counts.statements() > maxStatements) {
+            throw new AssertionError("Ожидалось не более " + maxStatements + " SQL-запросов, выполнено "
+                    + counts.statements() + " (загружено сущностей: " + counts.entities() + ")");
+        }
+        return counts;
+    }
+}
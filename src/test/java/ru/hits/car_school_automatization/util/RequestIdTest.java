@@ -0,0 +1,38 @@
+package ru.hits.car_school_automatization.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestId.clear();
+    }
+
+    @Test
+    @DisplayName("Корректный идентификатор клиента сохраняется как есть")
+    void start_KeepsValidId() {
+        assertEquals("req-1.A_b", RequestId.start("req-1.A_b"));
+        assertEquals("req-1.A_b", RequestId.current());
+    }
+
+    @Test
+    @DisplayName("Идентификатор с переводом строки, пробелами или слишком длинный заменяется новым")
+    void start_ReplacesUnsafeId() {
+        String forged = "abc\r\n2024-01-01 INFO fake";
+
+        String requestId = RequestId.start(forged);
+
+        assertNotEquals(forged, requestId);
+        assertDoesNotThrow(() -> UUID.fromString(requestId));
+        assertNotEquals("a b", RequestId.start("a b"));
+        assertNotEquals("x".repeat(65), RequestId.start("x".repeat(65)));
+        assertNotNull(RequestId.start(null));
+    }
+}
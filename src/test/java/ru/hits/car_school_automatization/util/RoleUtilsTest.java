@@ -0,0 +1,42 @@
+package ru.hits.car_school_automatization.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.hits.car_school_automatization.entity.User;
+import ru.hits.car_school_automatization.enums.Role;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleUtilsTest {
+
+    @Test
+    @DisplayName("Роли хранятся маской и читаются в порядке объявления")
+    void roleMask_RoundTrip() {
+        User user = User.builder().role(List.of(Role.MANAGER, Role.STUDENT)).build();
+
+        assertEquals(Role.STUDENT.bit() | Role.MANAGER.bit(), user.getRoleMask());
+        assertEquals(List.of(Role.STUDENT, Role.MANAGER), user.getRole());
+        assertTrue(user.hasRole(Role.MANAGER));
+        assertFalse(user.hasRole(Role.TEACHER));
+
+        user.setRole(List.of(Role.TEACHER));
+        assertEquals(List.of(Role.TEACHER), user.getRole());
+    }
+
+    @Test
+    @DisplayName("Проверка преподавателя — битовая операция по маске")
+    void isTeacherOrManager_UsesMask() {
+        assertTrue(RoleUtils.isTeacherOrManager(User.builder().role(List.of(Role.TEACHER)).build()));
+        assertTrue(RoleUtils.isTeacherOrManager(User.builder().role(List.of(Role.MANAGER, Role.STUDENT)).build()));
+        assertFalse(RoleUtils.isTeacherOrManager(User.builder().role(List.of(Role.STUDENT)).build()));
+        assertFalse(RoleUtils.isTeacherOrManager(User.builder().build()));
+    }
+
+    @Test
+    @DisplayName("Фильтр по роли раскрывается во все маски, содержащие ее бит")
+    void masksWith_ContainsAllMasksWithRole() {
+        assertEquals(List.of(2, 3, 6, 7), Role.masksWith(Role.TEACHER));
+    }
+}
@@ -0,0 +1,16 @@
+# language: ru
+
+Функция: Бюджет SQL-запросов эндпоинта
+  Как разработчик
+  Я хочу, чтобы число SQL-запросов эндпоинта не зависело от размера предмета
+  Чтобы N+1 обнаруживались тестами, а не в продакшене
+
+  Структура сценария: Таблица оценок предмета укладывается в бюджет запросов
+    Дано предмет с <студентов> студентами и 3 заданиями с критериями
+    Когда преподаватель запрашивает таблицу оценок предмета
+    Тогда запрос выполняет не более 30 SQL-запросов
+
+    Примеры:
+      | студентов |
+      | 3         |
+      | 30        |